@@ -0,0 +1,99 @@
+package study.querydsl.benchmark;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import study.querydsl.QuerydslApplication;
+import study.querydsl.service.MemberBulkLoader;
+import study.querydsl.service.MemberRecord;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.EntityTransaction;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+/**
+ * 벤치마크 공용 상태
+ * 인메모리 h2 로 애플리케이션 컨텍스트를 띄우고, teams 개 팀에 members 명의 회원을 적재한다.
+ * SQL 로그는 측정을 왜곡하므로 모두 끈다.
+ */
+@State(Scope.Benchmark)
+public class BenchmarkDatabase {
+
+    @Param({"1000"})
+    public int members;
+
+    @Param({"10"})
+    public int teams;
+
+    private ConfigurableApplicationContext context;
+    private EntityManagerFactory emf;
+
+    @Setup(Level.Trial)
+    public void start() {
+        context = new SpringApplicationBuilder(QuerydslApplication.class)
+                .web(WebApplicationType.NONE)
+                .logStartupInfo(false)
+                // properties() 는 application.yml 보다 우선순위가 낮으므로 커맨드라인 인자로 넘긴다.
+                .run(
+                        "--spring.datasource.url=jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1",
+                        "--spring.jpa.properties.hibernate.show_sql=false",
+                        "--spring.jpa.properties.hibernate.format_sql=false",
+                        "--spring.jpa.properties.hibernate.use_sql_comments=false",
+                        "--decorator.datasource.p6spy.enable-logging=false",
+                        "--logging.level.root=warn");
+        emf = context.getBean(EntityManagerFactory.class);
+
+        context.getBean(MemberBulkLoader.class).load(IntStream.range(0, members)
+                .mapToObj(i -> new MemberRecord("member" + i, i % 100, "team" + (i % teams))));
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    public ConfigurableApplicationContext getContext() {
+        return context;
+    }
+
+    public EntityManagerFactory getEntityManagerFactory() {
+        return emf;
+    }
+
+    /**
+     * 요청 하나를 흉내낸다: 새 EntityManager + 트랜잭션, 커밋(flush, 변경 감지 포함) 후 닫기
+     */
+    public <T> T inTransaction(Function<JPAQueryFactory, T> work) {
+        return inTransaction((em, queryFactory) -> work.apply(queryFactory));
+    }
+
+    public <T> T inTransaction(UnitOfWork<T> work) {
+        EntityManager em = emf.createEntityManager();
+        EntityTransaction tx = em.getTransaction();
+        try {
+            tx.begin();
+            T result = work.run(em, new JPAQueryFactory(em));
+            tx.commit();
+            return result;
+        } finally {
+            if (tx.isActive()) {
+                tx.rollback();
+            }
+            em.close();
+        }
+    }
+
+    @FunctionalInterface
+    public interface UnitOfWork<T> {
+        T run(EntityManager em, JPAQueryFactory queryFactory);
+    }
+}
@@ -0,0 +1,75 @@
+package study.querydsl.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.service.BulkLoadResult;
+import study.querydsl.service.MemberBulkLoader;
+import study.querydsl.service.MemberRecord;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * 회원 rows 명(팀 teamNames 개) 적재: 행마다 팀 조회 + persist + 커밋 vs MemberBulkLoader (batch insert, chunk 마다 팀 in 조회)
+ * 호출마다 새 이름의 회원/팀을 넣으므로 두 방식 모두 새 팀을 만드는 비용까지 포함한다.
+ * ./gradlew jmh -Pjmh.includes=MemberBulkLoadBenchmark
+ */
+public class MemberBulkLoadBenchmark {
+
+    @State(Scope.Thread)
+    public static class Records {
+
+        @Param({"2000"})
+        public int rows;
+
+        @Param({"200"})
+        public int teamNames;
+
+        private int round;
+        private List<MemberRecord> records;
+
+        @Setup(Level.Invocation)
+        public void next() {
+            int current = ++round;
+            records = IntStream.range(0, rows)
+                    .mapToObj(i -> new MemberRecord("load" + current + "_" + i, i % 100,
+                            "loadTeam" + current + "_" + i % teamNames))
+                    .collect(Collectors.toList());
+        }
+    }
+
+    @Benchmark
+    public long perRowPersist(BenchmarkDatabase db, Records records) {
+        for (MemberRecord record : records.records) {
+            db.inTransaction((em, queryFactory) -> {
+                Team found = queryFactory
+                        .selectFrom(team)
+                        .where(team.name.eq(record.getTeamName()))
+                        .fetchFirst();
+                if (found == null) {
+                    found = new Team(record.getTeamName());
+                    em.persist(found);
+                }
+                Member member = new Member(record.getUsername(), record.getAge());
+                member.setTeam(found);
+                em.persist(member);
+                return null;
+            });
+        }
+        return records.records.size();
+    }
+
+    @Benchmark
+    public BulkLoadResult bulkLoader(BenchmarkDatabase db, Records records) {
+        return db.getContext().getBean(MemberBulkLoader.class).load(records.records.stream());
+    }
+}
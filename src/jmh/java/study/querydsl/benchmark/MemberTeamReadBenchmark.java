@@ -0,0 +1,50 @@
+package study.querydsl.benchmark;
+
+import org.hibernate.annotations.QueryHints;
+import org.openjdk.jmh.annotations.Benchmark;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.QMemberTeamDto;
+import study.querydsl.entity.Member;
+
+import java.util.List;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * member join team 조회: 엔티티 vs read-only 엔티티 vs DTO 프로젝션
+ * 할당량은 -prof gc 의 gc.alloc.rate.norm (B/op) 으로 비교한다.
+ */
+public class MemberTeamReadBenchmark {
+
+    @Benchmark
+    public List<Member> entityFetchJoin(BenchmarkDatabase db) {
+        return db.inTransaction(queryFactory -> queryFactory
+                .selectFrom(member)
+                .join(member.team, team).fetchJoin()
+                .fetch());
+    }
+
+    @Benchmark
+    public List<Member> readOnlyEntityFetchJoin(BenchmarkDatabase db) {
+        return db.inTransaction(queryFactory -> queryFactory
+                .selectFrom(member)
+                .join(member.team, team).fetchJoin()
+                .setHint(QueryHints.READ_ONLY, true)
+                .fetch());
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> dtoProjection(BenchmarkDatabase db) {
+        return db.inTransaction(queryFactory -> queryFactory
+                .select(new QMemberTeamDto(
+                        member.id,
+                        member.username,
+                        member.age,
+                        team.id,
+                        team.name))
+                .from(member)
+                .join(member.team, team)
+                .fetch());
+    }
+}
@@ -0,0 +1,101 @@
+package study.querydsl.benchmark;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.hibernate.engine.spi.ManagedEntity;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import study.querydsl.entity.Member;
+import study.querydsl.service.MemberBulkLoader;
+import study.querydsl.service.MemberRecord;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static study.querydsl.entity.QMember.member;
+
+/**
+ * 회원 size 명을 영속성 컨텍스트에 올려둔 상태에서 flush 비용
+ * 바이트코드 향상 전/후를 비교한다.
+ *
+ * ./gradlew jmh -Pjmh.includes=PersistenceContextBenchmark                          (향상 적용)
+ * ./gradlew jmh -Pjmh.includes=PersistenceContextBenchmark -PhibernateEnhance=false (스냅샷 비교)
+ *
+ * 회원 한 명당 유지되는 힙 크기는 iteration 마다 출력한다. (retained bytes/member)
+ */
+public class PersistenceContextBenchmark {
+
+    @State(Scope.Thread)
+    public static class LoadedContext {
+
+        @Param({"100000"})
+        public int size;
+
+        private EntityManager em;
+        private List<Member> members;
+        private int round;
+
+        @Setup(Level.Trial)
+        public void seed(BenchmarkDatabase db) {
+            db.getContext().getBean(MemberBulkLoader.class).load(IntStream.range(0, size)
+                    .mapToObj(i -> new MemberRecord("pc" + i, i % 100, "pcTeam" + (i % 10))));
+        }
+
+        @Setup(Level.Iteration)
+        public void load(BenchmarkDatabase db) {
+            long before = usedHeap();
+            em = db.getEntityManagerFactory().createEntityManager();
+            em.getTransaction().begin();
+            members = new JPAQueryFactory(em)
+                    .selectFrom(member)
+                    .where(member.username.startsWith("pc"))
+                    .fetch();
+            long retained = usedHeap() - before;
+
+            System.out.printf("%n%d managed members, enhanced=%s, retained %d bytes/member%n",
+                    members.size(), members.get(0) instanceof ManagedEntity, retained / members.size());
+        }
+
+        @TearDown(Level.Iteration)
+        public void close() {
+            em.getTransaction().rollback();
+            em.close();
+            members = null;
+        }
+
+        private static long usedHeap() {
+            Runtime runtime = Runtime.getRuntime();
+            for (int i = 0; i < 3; i++) {
+                System.gc();
+            }
+            return runtime.totalMemory() - runtime.freeMemory();
+        }
+    }
+
+    /**
+     * 바뀐 엔티티가 없는 flush (조회 화면에서 트랜잭션 커밋)
+     */
+    @Benchmark
+    public void flushUnchanged(LoadedContext context) {
+        context.em.flush();
+    }
+
+    /**
+     * 1% 의 회원 나이를 바꾸고 flush
+     */
+    @Benchmark
+    public void flushOnePercentChanged(LoadedContext context) {
+        List<Member> members = context.members;
+        int round = ++context.round;
+        for (int i = round % 100; i < members.size(); i += 100) {
+            Member m = members.get(i);
+            m.setAge(m.getAge() + 1);
+        }
+        context.em.flush();
+    }
+}
@@ -0,0 +1,72 @@
+package study.querydsl.benchmark;
+
+import com.querydsl.core.types.dsl.Param;
+import com.querydsl.jpa.impl.JPAQuery;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import study.querydsl.entity.Member;
+import study.querydsl.query.PreparedJpaQuery;
+
+import javax.persistence.Query;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * 매번 쿼리를 만들고 직렬화하는 경로 vs PreparedJpaQuery
+ * - *CreateQuery : javax.persistence.Query 생성 + 바인딩까지 (요청당 CPU 절감분)
+ * - *Fetch       : 실행까지 포함
+ */
+@State(Scope.Benchmark)
+public class PreparedQueryBenchmark {
+
+    private static final Param<String> TEAM_NAME = new Param<>(String.class, "teamName");
+    private static final Param<Integer> MIN_AGE = new Param<>(Integer.class, "minAge");
+
+    private final PreparedJpaQuery<Member> prepared = PreparedJpaQuery.prepare(new JPAQuery<>()
+            .select(member)
+            .from(member)
+            .join(member.team, team)
+            .where(team.name.eq(TEAM_NAME), member.age.goe(MIN_AGE))
+            .orderBy(member.age.desc(), member.id.asc())
+            .limit(20));
+
+    @Benchmark
+    public Query queryFactoryCreateQuery(BenchmarkDatabase db) {
+        return db.inTransaction(queryFactory -> queryFactory
+                .selectFrom(member)
+                .join(member.team, team)
+                .where(team.name.eq("team1"), member.age.goe(50))
+                .orderBy(member.age.desc(), member.id.asc())
+                .limit(20)
+                .createQuery());
+    }
+
+    @Benchmark
+    public Query preparedCreateQuery(BenchmarkDatabase db) {
+        return db.inTransaction((em, queryFactory) -> prepared.with(em)
+                .set(TEAM_NAME, "team1")
+                .set(MIN_AGE, 50)
+                .createQuery());
+    }
+
+    @Benchmark
+    public Object queryFactoryFetch(BenchmarkDatabase db) {
+        return db.inTransaction(queryFactory -> queryFactory
+                .selectFrom(member)
+                .join(member.team, team)
+                .where(team.name.eq("team1"), member.age.goe(50))
+                .orderBy(member.age.desc(), member.id.asc())
+                .limit(20)
+                .fetch());
+    }
+
+    @Benchmark
+    public Object preparedFetch(BenchmarkDatabase db) {
+        return db.inTransaction((em, queryFactory) -> prepared.with(em)
+                .set(TEAM_NAME, "team1")
+                .set(MIN_AGE, 50)
+                .fetch());
+    }
+}
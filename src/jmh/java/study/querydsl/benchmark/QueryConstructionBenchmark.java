@@ -0,0 +1,59 @@
+package study.querydsl.benchmark;
+
+import com.querydsl.core.types.dsl.CaseBuilder;
+import com.querydsl.jpa.impl.JPAQuery;
+import org.openjdk.jmh.annotations.Benchmark;
+import study.querydsl.entity.QMember;
+
+import static com.querydsl.jpa.JPAExpressions.select;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * DB 없이 QueryDSL 표현식 트리 생성 + JPQL 직렬화 비용만 측정한다.
+ * (EntityManager 없는 JPAQuery 의 toString() 이 JPQL 직렬화 결과)
+ */
+public class QueryConstructionBenchmark {
+
+    @Benchmark
+    public String simpleWhere() {
+        return new JPAQuery<>()
+                .select(member)
+                .from(member)
+                .where(member.username.eq("member1"))
+                .toString();
+    }
+
+    @Benchmark
+    public String joinWhere() {
+        return new JPAQuery<>()
+                .select(member)
+                .from(member)
+                .join(member.team, team).fetchJoin()
+                .where(team.name.eq("teamA"), member.age.goe(20))
+                .toString();
+    }
+
+    @Benchmark
+    public String subQuery() {
+        QMember memberSub = new QMember("memberSub");
+        return new JPAQuery<>()
+                .select(member)
+                .from(member)
+                .where(member.age.goe(
+                        select(memberSub.age.avg())
+                                .from(memberSub)))
+                .toString();
+    }
+
+    @Benchmark
+    public String caseBuilder() {
+        return new JPAQuery<>()
+                .select(new CaseBuilder()
+                        .when(member.age.between(10, 20)).then("10~20살")
+                        .when(member.age.between(20, 30)).then("20~30살")
+                        .otherwise("기타"))
+                .from(member)
+                .toString();
+    }
+}
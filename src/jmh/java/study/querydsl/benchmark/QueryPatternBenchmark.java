@@ -0,0 +1,96 @@
+package study.querydsl.benchmark;
+
+import com.querydsl.core.types.dsl.CaseBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.infra.Blackhole;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.QMember;
+
+import java.util.List;
+
+import static com.querydsl.jpa.JPAExpressions.select;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * QuerydslBasicTest 에서 사용하는 쿼리 패턴을 인메모리 h2 에 대해 실행까지 포함해서 측정한다.
+ * 각 호출은 새 EntityManager + 트랜잭션 하나 (요청 하나) 이다.
+ */
+public class QueryPatternBenchmark {
+
+    @Benchmark
+    public Member startJPQL(BenchmarkDatabase db) {
+        return db.inTransaction((em, queryFactory) -> em
+                .createQuery("select m from Member m where m.username = :username", Member.class)
+                .setParameter("username", "member1")
+                .getSingleResult());
+    }
+
+    @Benchmark
+    public Member startQuerydsl(BenchmarkDatabase db) {
+        return db.inTransaction(queryFactory -> queryFactory
+                .selectFrom(member)
+                .where(member.username.eq("member1"))
+                .fetchOne());
+    }
+
+    /**
+     * 팀을 지연 로딩으로 접근 -> 팀 수만큼 추가 select (N+1)
+     */
+    @Benchmark
+    public void lazyTeam(BenchmarkDatabase db, Blackhole blackhole) {
+        db.inTransaction(queryFactory -> {
+            List<Member> members = queryFactory
+                    .selectFrom(member)
+                    .fetch();
+            for (Member m : members) {
+                blackhole.consume(m.getTeam().getName());
+            }
+            return null;
+        });
+    }
+
+    @Benchmark
+    public void fetchJoinTeam(BenchmarkDatabase db, Blackhole blackhole) {
+        db.inTransaction(queryFactory -> {
+            List<Member> members = queryFactory
+                    .selectFrom(member)
+                    .join(member.team, team).fetchJoin()
+                    .fetch();
+            for (Member m : members) {
+                blackhole.consume(m.getTeam().getName());
+            }
+            return null;
+        });
+    }
+
+    @Benchmark
+    public List<Member> subQuery(BenchmarkDatabase db) {
+        QMember memberSub = new QMember("memberSub");
+        return db.inTransaction(queryFactory -> queryFactory
+                .selectFrom(member)
+                .where(member.age.goe(
+                        select(memberSub.age.avg())
+                                .from(memberSub)))
+                .fetch());
+    }
+
+    @Benchmark
+    public List<String> caseBuilder(BenchmarkDatabase db) {
+        return db.inTransaction(queryFactory -> queryFactory
+                .select(new CaseBuilder()
+                        .when(member.age.between(10, 20)).then("10~20살")
+                        .when(member.age.between(20, 30)).then("20~30살")
+                        .otherwise("기타"))
+                .from(member)
+                .fetch());
+    }
+
+    @Benchmark
+    public List<String> concat(BenchmarkDatabase db) {
+        return db.inTransaction(queryFactory -> queryFactory
+                .select(member.username.concat("_").concat(member.age.stringValue()))
+                .from(member)
+                .fetch());
+    }
+}
@@ -0,0 +1,68 @@
+package study.querydsl.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import study.querydsl.dto.MemberDto;
+import study.querydsl.dto.QMemberDto;
+import study.querydsl.dto.TeamMembersDto;
+import study.querydsl.entity.Team;
+import study.querydsl.transform.SortedGroupBy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static com.querydsl.core.group.GroupBy.groupBy;
+import static com.querydsl.core.group.GroupBy.list;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * 팀 -> 회원 목록 DTO 만들기: 컬렉션 fetch join 엔티티 변환 vs GroupBy vs SortedGroupBy
+ * 할당량은 -prof gc 의 gc.alloc.rate.norm (B/op) 으로 비교한다.
+ * ./gradlew jmh -Pjmh.includes=TeamMembersTransformBenchmark
+ */
+public class TeamMembersTransformBenchmark {
+
+    @Benchmark
+    public List<TeamMembersDto> entityFetchJoin(BenchmarkDatabase db) {
+        return db.inTransaction(queryFactory -> {
+            List<Team> teams = queryFactory
+                    .selectFrom(team).distinct()
+                    .leftJoin(team.members, member).fetchJoin()
+                    .orderBy(team.id.asc())
+                    .fetch();
+            List<TeamMembersDto> result = new ArrayList<>(teams.size());
+            for (Team t : teams) {
+                result.add(new TeamMembersDto(t.getId(), t.getName(), t.getMembers().stream()
+                        .map(m -> new MemberDto(m.getId(), m.getUsername(), m.getAge()))
+                        .collect(Collectors.toList())));
+            }
+            return result;
+        });
+    }
+
+    @Benchmark
+    public List<TeamMembersDto> querydslGroupBy(BenchmarkDatabase db) {
+        return db.inTransaction(queryFactory -> queryFactory
+                .from(team)
+                .leftJoin(team.members, member)
+                .orderBy(team.id.asc(), member.id.asc())
+                .transform(groupBy(team.id).list(team.name, list(new QMemberDto(member.id, member.username, member.age))))
+                .stream()
+                .map(group -> new TeamMembersDto(group.getOne(team.id), group.getOne(team.name),
+                        group.getList(new QMemberDto(member.id, member.username, member.age))))
+                .collect(Collectors.toList()));
+    }
+
+    @Benchmark
+    public List<TeamMembersDto> sortedGroupBy(BenchmarkDatabase db) {
+        return db.inTransaction(queryFactory -> queryFactory
+                .from(team)
+                .leftJoin(team.members, member)
+                .orderBy(team.id.asc(), member.id.asc())
+                .transform(SortedGroupBy.nested(team.id, team.name,
+                                member.id, new QMemberDto(member.id, member.username, member.age),
+                                TeamMembersDto::new)
+                        .presized(db.teams, db.members / db.teams)));
+    }
+}
@@ -0,0 +1,290 @@
+package study.querydsl.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.QuerydslApplication;
+import study.querydsl.metrics.LatencyHistogram;
+import study.querydsl.search.UsernameIndex;
+import study.querydsl.service.MemberBulkLoader;
+import study.querydsl.service.MemberRecord;
+import study.querydsl.stats.TeamStatsRegistry;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.IntStream;
+
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * 로컬 HTTP 부하 테스트 (./gradlew loadTest)
+ *
+ * 1. 인메모리 h2 로 애플리케이션을 임의 포트에 띄운다. (SQL 로그는 측정을 왜곡하므로 끈다)
+ * 2. loadtest.teams 개 팀에 loadtest.members 명의 회원을 적재한다.
+ * 3. loadtest.threads 개 스레드가 응답을 받자마자 다음 요청을 보낸다. (closed loop)
+ *    loadtest.rate 를 주면 초당 그만큼의 요청을 정해진 시각에 보낸다. (open loop)
+ *    이때 응답시간은 보내려던 시각부터 재므로, 서버가 밀려 늦게 보낸 요청의 대기 시간도 포함된다. (coordinated omission 보정)
+ *    closed loop 는 서버가 느려지면 요청도 덜 보내므로 꼬리 지연시간이 실제보다 작게 나온다.
+ *    loadtest.warmup 초 동안은 기록하지 않고, 이후 loadtest.duration 초 동안 엔드포인트별 응답시간을 기록한다.
+ * 4. 처리량과 p50/p95/p99/max 를 출력하고 loadtest.report-dir 에 JSON 으로 남긴다.
+ *
+ * 같은 장비에서 설정만 바꿔 가며 돌리고, JSON 파일끼리 비교한다.
+ */
+public class LoadTest {
+
+    private final int teams = Integer.getInteger("loadtest.teams", 100);
+    private final int members = Integer.getInteger("loadtest.members", 10_000);
+    private final int threads = Integer.getInteger("loadtest.threads", 16);
+    private final int rate = Integer.getInteger("loadtest.rate", 0);
+    private final Duration warmup = Duration.ofSeconds(Long.getLong("loadtest.warmup", 10));
+    private final Duration duration = Duration.ofSeconds(Long.getLong("loadtest.duration", 30));
+    private final Path reportDir = Paths.get(System.getProperty("loadtest.report-dir", "build/reports/loadtest"));
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+    private final LatencyHistogram total = new LatencyHistogram();
+
+    private volatile boolean recording;
+    private volatile boolean running = true;
+
+    public static void main(String[] args) throws Exception {
+        new LoadTest().run();
+    }
+
+    private void run() throws Exception {
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(QuerydslApplication.class)
+                .logStartupInfo(false)
+                // properties() 는 application.yml 보다 우선순위가 낮으므로 커맨드라인 인자로 넘긴다.
+                .run(
+                        "--server.port=0",
+                        "--spring.datasource.url=jdbc:h2:mem:loadtest;DB_CLOSE_DELAY=-1",
+                        "--spring.jpa.properties.hibernate.show_sql=false",
+                        "--spring.jpa.properties.hibernate.format_sql=false",
+                        "--spring.jpa.properties.hibernate.use_sql_comments=false",
+                        "--decorator.datasource.p6spy.enable-logging=false",
+                        "--logging.level.root=warn");
+        try {
+            List<Long> teamIds = seed(context);
+            String baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+            List<Scenario> scenarios = scenarios(teamIds);
+
+            long elapsedNanos = drive(baseUrl, scenarios);
+
+            Map<String, Object> report = report(scenarios, elapsedNanos);
+            print(report);
+            Path file = write(report);
+            System.out.println("report: " + file.toAbsolutePath());
+        } finally {
+            context.close();
+        }
+    }
+
+    private List<Long> seed(ConfigurableApplicationContext context) {
+        long start = System.nanoTime();
+        context.getBean(MemberBulkLoader.class).load(IntStream.range(0, members)
+                .mapToObj(i -> new MemberRecord("member" + i, i % 100, "team" + (i % teams))));
+        context.getBean(TeamStatsRegistry.class).rebuild();
+        context.getBean(UsernameIndex.class).rebuild();
+
+        JPAQueryFactory queryFactory = context.getBean(JPAQueryFactory.class);
+        List<Long> teamIds = context.getBean(TransactionTemplate.class)
+                .execute(status -> queryFactory.select(team.id).from(team).fetch());
+        System.out.printf("seeded %d teams, %d members in %d ms%n",
+                teamIds.size(), members, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        return teamIds;
+    }
+
+    private List<Scenario> scenarios(List<Long> teamIds) {
+        int teamPages = Math.max(1, teams / 20);
+        return Arrays.asList(
+                new Scenario("hello", 1, random -> "/hello"),
+                new Scenario("teams", 2, random -> "/teams?page=" + random.nextInt(teamPages) + "&size=20"),
+                new Scenario("teamStats", 3, random -> "/teams/" + teamIds.get(random.nextInt(teamIds.size())) + "/stats"),
+                new Scenario("memberSearchPrefix", 3,
+                        random -> "/members/search?prefix=member" + random.nextInt(1000) + "&limit=20"),
+                new Scenario("memberSearchContains", 1,
+                        random -> "/members/search/ids?contains=" + (100 + random.nextInt(900)) + "&limit=20")
+        );
+    }
+
+    /**
+     * @return 기록 구간의 실제 경과 시간(ns)
+     */
+    private long drive(String baseUrl, List<Scenario> scenarios) throws InterruptedException {
+        Scenario[] wheel = scenarios.stream()
+                .flatMap(scenario -> IntStream.range(0, scenario.getWeight()).mapToObj(i -> scenario))
+                .toArray(Scenario[]::new);
+
+        ExecutorService workers = Executors.newFixedThreadPool(threads);
+        long begin = System.nanoTime();
+        for (int i = 0; i < threads; i++) {
+            int worker = i;
+            workers.execute(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                if (rate <= 0) {
+                    while (running) {
+                        call(baseUrl, wheel[random.nextInt(wheel.length)], random, System.nanoTime());
+                    }
+                    return;
+                }
+                // 스레드마다 threads / rate 초 간격, 스레드끼리는 간격을 나눠 어긋나게 보낸다.
+                long interval = TimeUnit.SECONDS.toNanos(threads) / rate;
+                long intended = begin + interval * worker / threads;
+                while (running) {
+                    long wait = intended - System.nanoTime();
+                    if (wait > 0) {
+                        LockSupport.parkNanos(wait);
+                        continue;
+                    }
+                    // 늦었더라도 건너뛰지 않는다. 밀린 만큼 다음 요청들의 응답시간에 포함된다.
+                    call(baseUrl, wheel[random.nextInt(wheel.length)], random, intended);
+                    intended += interval;
+                }
+            });
+        }
+
+        System.out.printf("warming up %d s with %d threads (%s)%n", warmup.getSeconds(), threads, mode());
+        Thread.sleep(warmup.toMillis());
+        recording = true;
+        long start = System.nanoTime();
+        System.out.printf("measuring %d s%n", duration.getSeconds());
+        Thread.sleep(duration.toMillis());
+        recording = false;
+        long elapsed = System.nanoTime() - start;
+
+        running = false;
+        workers.shutdown();
+        workers.awaitTermination(30, TimeUnit.SECONDS);
+        return elapsed;
+    }
+
+    /**
+     * @param start 응답시간 측정 시작 시각, open loop 면 보내려던 시각
+     */
+    private void call(String baseUrl, Scenario scenario, ThreadLocalRandom random, long start) {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + scenario.nextPath(random)))
+                .timeout(Duration.ofSeconds(30))
+                .GET()
+                .build();
+        boolean ok;
+        try {
+            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+            ok = response.statusCode() / 100 == 2;
+        } catch (IOException e) {
+            ok = false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+            return;
+        }
+        long nanos = System.nanoTime() - start;
+
+        if (!recording) {
+            return;
+        }
+        scenario.getLatency().recordNanos(nanos);
+        total.recordNanos(nanos);
+        if (!ok) {
+            scenario.recordError();
+        }
+    }
+
+    private Map<String, Object> report(List<Scenario> scenarios, long elapsedNanos) {
+        double seconds = elapsedNanos / 1_000_000_000.0;
+
+        Map<String, Object> config = new LinkedHashMap<>();
+        config.put("teams", teams);
+        config.put("members", members);
+        config.put("threads", threads);
+        config.put("mode", mode());
+        config.put("targetRatePerSecond", rate > 0 ? rate : null);
+        config.put("warmupSeconds", warmup.getSeconds());
+        config.put("durationSeconds", duration.getSeconds());
+
+        Map<String, Object> environment = new LinkedHashMap<>();
+        environment.put("javaVersion", System.getProperty("java.version"));
+        environment.put("os", System.getProperty("os.name") + " " + System.getProperty("os.version"));
+        environment.put("availableProcessors", Runtime.getRuntime().availableProcessors());
+        environment.put("maxHeapBytes", Runtime.getRuntime().maxMemory());
+
+        Map<String, Object> endpoints = new LinkedHashMap<>();
+        long errors = 0;
+        for (Scenario scenario : scenarios) {
+            endpoints.put(scenario.getName(), summary(scenario.getLatency(), scenario.getErrors(), seconds));
+            errors += scenario.getErrors();
+        }
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("finishedAt", Instant.now().toString());
+        report.put("config", config);
+        report.put("environment", environment);
+        report.put("total", summary(total, errors, seconds));
+        report.put("endpoints", endpoints);
+        return report;
+    }
+
+    private String mode() {
+        return rate > 0 ? "open-loop" : "closed-loop";
+    }
+
+    private static Map<String, Object> summary(LatencyHistogram latency, long errors, double seconds) {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("requests", latency.getCount());
+        summary.put("errors", errors);
+        summary.put("throughputPerSecond", Math.round(latency.getCount() / seconds * 10) / 10.0);
+        summary.put("meanMicros", Math.round(latency.getMeanMicros()));
+        summary.put("p50Micros", latency.percentileMicros(50));
+        summary.put("p95Micros", latency.percentileMicros(95));
+        summary.put("p99Micros", latency.percentileMicros(99));
+        summary.put("maxMicros", latency.getMaxMicros());
+        return summary;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void print(Map<String, Object> report) {
+        System.out.printf("%-22s %10s %8s %10s %10s %10s %10s %10s%n",
+                "endpoint", "requests", "errors", "req/s", "p50(us)", "p95(us)", "p99(us)", "max(us)");
+        Map<String, Object> rows = new LinkedHashMap<>((Map<String, Object>) report.get("endpoints"));
+        rows.put("total", report.get("total"));
+        rows.forEach((name, value) -> {
+            Map<String, Object> row = (Map<String, Object>) value;
+            System.out.printf("%-22s %10s %8s %10s %10s %10s %10s %10s%n", name,
+                    row.get("requests"), row.get("errors"), row.get("throughputPerSecond"),
+                    row.get("p50Micros"), row.get("p95Micros"), row.get("p99Micros"), row.get("maxMicros"));
+        });
+    }
+
+    private Path write(Map<String, Object> report) throws IOException {
+        Files.createDirectories(reportDir);
+        String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
+        Path file = reportDir.resolve("loadtest-" + timestamp + ".json");
+        new ObjectMapper()
+                .enable(SerializationFeature.INDENT_OUTPUT)
+                .writeValue(file.toFile(), report);
+        return file;
+    }
+}
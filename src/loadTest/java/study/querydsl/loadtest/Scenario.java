@@ -0,0 +1,51 @@
+package study.querydsl.loadtest;
+
+import study.querydsl.metrics.LatencyHistogram;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * 부하 테스트에서 호출하는 엔드포인트 하나
+ * weight 비율로 선택되고, 호출할 때마다 path 함수로 요청 경로(쿼리 스트링 포함)를 만든다.
+ */
+public class Scenario {
+
+    private final String name;
+    private final int weight;
+    private final Function<ThreadLocalRandom, String> path;
+
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LongAdder errors = new LongAdder();
+
+    public Scenario(String name, int weight, Function<ThreadLocalRandom, String> path) {
+        this.name = name;
+        this.weight = weight;
+        this.path = path;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getWeight() {
+        return weight;
+    }
+
+    public String nextPath(ThreadLocalRandom random) {
+        return path.apply(random);
+    }
+
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    void recordError() {
+        errors.increment();
+    }
+}
@@ -0,0 +1,114 @@
+package study.querydsl.cache;
+
+import com.querydsl.core.JoinExpression;
+import com.querydsl.core.QueryMetadata;
+import com.querydsl.core.types.Constant;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.FactoryExpression;
+import com.querydsl.core.types.Operation;
+import com.querydsl.core.types.OrderSpecifier;
+import com.querydsl.core.types.ParamExpression;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.SubQueryExpression;
+import com.querydsl.core.types.TemplateExpression;
+import com.querydsl.core.types.Visitor;
+
+import javax.persistence.Entity;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * 쿼리(서브쿼리 포함)가 읽는 엔티티 타입을 모은다.
+ * member.team.name 처럼 경로 중간의 연관 엔티티(Team)도 포함한다.
+ */
+final class EntityTypeCollector implements Visitor<Void, Set<Class<?>>> {
+
+    private static final EntityTypeCollector INSTANCE = new EntityTypeCollector();
+
+    private EntityTypeCollector() {
+    }
+
+    static Set<Class<?>> collect(QueryMetadata metadata) {
+        Set<Class<?>> types = new HashSet<>();
+        INSTANCE.visitMetadata(metadata, types);
+        return types;
+    }
+
+    static boolean isEntity(Class<?> type) {
+        return type != null && type.isAnnotationPresent(Entity.class);
+    }
+
+    @Override
+    public Void visit(Constant<?> expr, Set<Class<?>> types) {
+        return null;
+    }
+
+    @Override
+    public Void visit(FactoryExpression<?> expr, Set<Class<?>> types) {
+        visitAll(expr.getArgs(), types);
+        return null;
+    }
+
+    @Override
+    public Void visit(Operation<?> expr, Set<Class<?>> types) {
+        visitAll(expr.getArgs(), types);
+        return null;
+    }
+
+    @Override
+    public Void visit(ParamExpression<?> expr, Set<Class<?>> types) {
+        return null;
+    }
+
+    @Override
+    public Void visit(Path<?> expr, Set<Class<?>> types) {
+        for (Path<?> path = expr; path != null; path = path.getMetadata().getParent()) {
+            if (isEntity(path.getType())) {
+                types.add(path.getType());
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public Void visit(SubQueryExpression<?> expr, Set<Class<?>> types) {
+        visitMetadata(expr.getMetadata(), types);
+        return null;
+    }
+
+    @Override
+    public Void visit(TemplateExpression<?> expr, Set<Class<?>> types) {
+        for (Object arg : expr.getArgs()) {
+            if (arg instanceof Expression) {
+                ((Expression<?>) arg).accept(this, types);
+            }
+        }
+        return null;
+    }
+
+    private void visitMetadata(QueryMetadata metadata, Set<Class<?>> types) {
+        accept(metadata.getProjection(), types);
+        for (JoinExpression join : metadata.getJoins()) {
+            accept(join.getTarget(), types);
+            accept(join.getCondition(), types);
+        }
+        accept(metadata.getWhere(), types);
+        visitAll(metadata.getGroupBy(), types);
+        accept(metadata.getHaving(), types);
+        for (OrderSpecifier<?> order : metadata.getOrderBy()) {
+            accept(order.getTarget(), types);
+        }
+    }
+
+    private void visitAll(Iterable<? extends Expression<?>> exprs, Set<Class<?>> types) {
+        for (Expression<?> expr : exprs) {
+            accept(expr, types);
+        }
+    }
+
+    private void accept(Expression<?> expr, Set<Class<?>> types) {
+        if (expr != null) {
+            expr.accept(this, types);
+        }
+    }
+}
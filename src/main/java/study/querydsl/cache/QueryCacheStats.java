@@ -0,0 +1,36 @@
+package study.querydsl.cache;
+
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * QueryResultCache 통계 스냅샷
+ * bypasses : 캐시할 수 없어서(엔티티 조회, 쓰기 트랜잭션) 바로 실행한 횟수
+ */
+@Getter
+@ToString
+public class QueryCacheStats {
+    private final long hits;
+    private final long misses;
+    private final long bypasses;
+    private final long evictions;
+    private final long expirations;
+    private final long invalidations;
+    private final int size;
+
+    public QueryCacheStats(long hits, long misses, long bypasses, long evictions,
+                           long expirations, long invalidations, int size) {
+        this.hits = hits;
+        this.misses = misses;
+        this.bypasses = bypasses;
+        this.evictions = evictions;
+        this.expirations = expirations;
+        this.invalidations = invalidations;
+        this.size = size;
+    }
+
+    public double getHitRate() {
+        long requests = hits + misses;
+        return requests == 0 ? 0 : (double) hits / requests;
+    }
+}
@@ -0,0 +1,334 @@
+package study.querydsl.cache;
+
+import com.querydsl.core.NonUniqueResultException;
+import com.querydsl.core.QueryMetadata;
+import com.querydsl.core.QueryModifiers;
+import com.querydsl.core.types.EntityPath;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.FactoryExpression;
+import com.querydsl.core.types.ParamExpression;
+import com.querydsl.core.types.ParamNotSetException;
+import com.querydsl.jpa.HQLTemplates;
+import com.querydsl.jpa.JPQLSerializer;
+import com.querydsl.jpa.impl.JPADeleteClause;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAUpdateClause;
+import lombok.EqualsAndHashCode;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import study.querydsl.event.EntityCommitEvent;
+
+import javax.persistence.EntityManager;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 읽기 위주 QueryDSL 쿼리의 결과 캐시
+ *
+ * <pre>
+ * List&lt;MemberTeamDto&gt; result = queryResultCache.fetch(queryFactory
+ *         .select(new QMemberTeamDto(...))
+ *         .from(member)
+ *         .where(member.username.eq(username)));
+ * </pre>
+ *
+ * - 키 : 직렬화한 JPQL + 바인딩 값(Param 포함) + 결과 타입 + limit/offset
+ * - 크기 : max-entries 를 넘으면 가장 오래 사용하지 않은 결과부터 버린다. (LRU)
+ * - 만료 : ttl 이 지나면 다시 조회한다.
+ * - 무효화 : 쿼리가 읽는 엔티티 타입이 커밋되면(EntityCommitEvent) 그 타입을 읽는 결과를 모두 버린다.
+ *   JPQL 벌크 연산은 이벤트가 없으므로 update()/delete() 로 만든 clause 를 사용해야 무효화된다.
+ *   무효화는 엔티티 타입의 세대(generation)만 올리고, 결과는 꺼낼 때 저장할 때의 세대와 비교해서 버린다.
+ *   (이벤트마다 캐시 전체를 훑지 않는다, 다시 꺼내지 않는 결과는 LRU/ttl 로 빠진다)
+ *
+ * 엔티티를 조회하는 쿼리는 캐시하지 않는다. (영속성 컨텍스트가 다른 요청 간에 엔티티를 공유하게 된다)
+ * 쓰기 트랜잭션 안에서는 커밋 전 변경을 봐야 하므로 캐시를 거치지 않고 바로 실행한다.
+ * 캐시된 목록은 호출한 곳끼리 공유되므로 수정하지 않는다.
+ */
+@Component
+public class QueryResultCache {
+
+    private final EntityManager em;
+    private final long ttlNanos;
+    private final int maxEntries;
+    private final Map<CacheKey, CachedResult> results;
+    private final Map<Class<?>, AtomicLong> generations = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder bypasses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    public QueryResultCache(EntityManager em,
+                            @Value("${app.query-cache.ttl:1m}") Duration ttl,
+                            @Value("${app.query-cache.max-entries:1000}") int maxEntries) {
+        this.em = em;
+        this.ttlNanos = ttl.toNanos();
+        this.maxEntries = maxEntries;
+        this.results = new LinkedHashMap<CacheKey, CachedResult>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<CacheKey, CachedResult> eldest) {
+                if (size() > QueryResultCache.this.maxEntries) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    public <T> List<T> fetch(JPAQuery<T> query) {
+        QueryMetadata metadata = query.getMetadata();
+        if (!isCacheable(metadata)) {
+            bypasses.increment();
+            return query.fetch();
+        }
+
+        CacheKey key = keyOf(metadata);
+        CachedResult cached = get(key);
+        if (cached != null) {
+            hits.increment();
+            return cached.rows();
+        }
+        misses.increment();
+
+        Set<Class<?>> entityTypes = EntityTypeCollector.collect(metadata);
+        long stamp = stampOf(entityTypes);
+        List<T> rows = Collections.unmodifiableList(new ArrayList<>(query.fetch()));
+        put(key, new CachedResult(rows, entityTypes, stamp, System.nanoTime() + ttlNanos));
+        return rows;
+    }
+
+    public <T> T fetchOne(JPAQuery<T> query) {
+        List<T> rows = fetch(query);
+        if (rows.isEmpty()) {
+            return null;
+        }
+        if (rows.size() > 1) {
+            throw new NonUniqueResultException();
+        }
+        return rows.get(0);
+    }
+
+    /**
+     * 실행 후 entity 를 읽는 캐시 결과를 무효화하는 벌크 update
+     */
+    public JPAUpdateClause update(EntityPath<?> entity) {
+        return new JPAUpdateClause(em, entity) {
+            @Override
+            public long execute() {
+                try {
+                    return super.execute();
+                } finally {
+                    invalidateOnCompletion(entity.getType());
+                }
+            }
+        };
+    }
+
+    /**
+     * 실행 후 entity 를 읽는 캐시 결과를 무효화하는 벌크 delete
+     */
+    public JPADeleteClause delete(EntityPath<?> entity) {
+        return new JPADeleteClause(em, entity) {
+            @Override
+            public long execute() {
+                try {
+                    return super.execute();
+                } finally {
+                    invalidateOnCompletion(entity.getType());
+                }
+            }
+        };
+    }
+
+    @EventListener
+    public void onCommit(EntityCommitEvent event) {
+        invalidate(event.getEntityType());
+    }
+
+    /**
+     * entityType(또는 그 상위/하위 타입)을 읽는 캐시 결과를 모두 버린다. (다음에 꺼낼 때 버려진다)
+     */
+    public void invalidate(Class<?> entityType) {
+        generations.computeIfAbsent(entityType, type -> new AtomicLong()).incrementAndGet();
+    }
+
+    public void clear() {
+        generations.values().forEach(AtomicLong::incrementAndGet);
+        synchronized (results) {
+            results.clear();
+        }
+    }
+
+    public QueryCacheStats stats() {
+        int size;
+        synchronized (results) {
+            size = results.size();
+        }
+        return new QueryCacheStats(hits.sum(), misses.sum(), bypasses.sum(), evictions.sum(),
+                expirations.sum(), invalidations.sum(), size);
+    }
+
+    /**
+     * 트랜잭션 안이면 커밋/롤백 후에 한 번 더 무효화한다.
+     * (커밋 전에 다른 트랜잭션이 이전 값을 다시 캐시해둘 수 있으므로)
+     */
+    private void invalidateOnCompletion(Class<?> entityType) {
+        invalidate(entityType);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    invalidate(entityType);
+                }
+            });
+        }
+    }
+
+    private CachedResult get(CacheKey key) {
+        synchronized (results) {
+            CachedResult cached = results.get(key);
+            if (cached == null) {
+                return null;
+            }
+            if (stampOf(cached.entityTypes) != cached.stamp) {
+                results.remove(key);
+                invalidations.increment();
+                return null;
+            }
+            if (cached.isExpired(System.nanoTime())) {
+                results.remove(key);
+                expirations.increment();
+                return null;
+            }
+            return cached;
+        }
+    }
+
+    /**
+     * 조회하는 동안 읽은 엔티티 타입이 변경(무효화)되었으면 결과를 저장하지 않는다.
+     */
+    private void put(CacheKey key, CachedResult result) {
+        synchronized (results) {
+            if (stampOf(result.entityTypes) == result.stamp) {
+                results.put(key, result);
+            }
+        }
+    }
+
+    /**
+     * entityTypes 와 상속 관계인 타입들의 세대 합, 세대는 늘어나기만 하므로 하나라도 무효화되면 값이 바뀐다.
+     * (generations 는 엔티티 타입 수만큼만 있다)
+     */
+    private long stampOf(Set<Class<?>> entityTypes) {
+        long stamp = 0;
+        for (Map.Entry<Class<?>, AtomicLong> generation : generations.entrySet()) {
+            if (reads(entityTypes, generation.getKey())) {
+                stamp += generation.getValue().get();
+            }
+        }
+        return stamp;
+    }
+
+    private static boolean reads(Set<Class<?>> entityTypes, Class<?> entityType) {
+        for (Class<?> type : entityTypes) {
+            if (type.isAssignableFrom(entityType) || entityType.isAssignableFrom(type)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isCacheable(QueryMetadata metadata) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return false;
+        }
+        Expression<?> projection = metadata.getProjection();
+        if (projection instanceof FactoryExpression) {
+            for (Expression<?> arg : ((FactoryExpression<?>) projection).getArgs()) {
+                if (isEntity(arg)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return projection != null && !isEntity(projection);
+    }
+
+    private static boolean isEntity(Expression<?> expr) {
+        return expr instanceof EntityPath && EntityTypeCollector.isEntity(expr.getType());
+    }
+
+    private static CacheKey keyOf(QueryMetadata metadata) {
+        JPQLSerializer serializer = new JPQLSerializer(HQLTemplates.DEFAULT);
+        serializer.serialize(metadata, false, null);
+
+        Map<ParamExpression<?>, Object> params = metadata.getParams();
+        List<Object> bindings = new ArrayList<>(serializer.getConstants().size());
+        for (Object constant : serializer.getConstants()) {
+            if (constant instanceof ParamExpression) {
+                ParamExpression<?> param = (ParamExpression<?>) constant;
+                if (!params.containsKey(param)) {
+                    throw new ParamNotSetException(param);
+                }
+                bindings.add(params.get(param));
+            } else {
+                bindings.add(constant);
+            }
+        }
+        return new CacheKey(serializer.toString(), metadata.getProjection().getType(),
+                bindings, metadata.getModifiers());
+    }
+
+    @EqualsAndHashCode
+    private static final class CacheKey {
+        private final String jpql;
+        private final Class<?> resultType;
+        private final List<Object> bindings;
+        private final QueryModifiers modifiers;
+
+        private CacheKey(String jpql, Class<?> resultType, List<Object> bindings, QueryModifiers modifiers) {
+            this.jpql = jpql;
+            this.resultType = resultType;
+            this.bindings = bindings;
+            this.modifiers = modifiers;
+        }
+    }
+
+    private static final class CachedResult {
+        private final List<?> rows;
+        private final Set<Class<?>> entityTypes;
+        private final long stamp;
+        private final long expiresAt;
+
+        private CachedResult(List<?> rows, Set<Class<?>> entityTypes, long stamp, long expiresAt) {
+            this.rows = rows;
+            this.entityTypes = entityTypes;
+            this.stamp = stamp;
+            this.expiresAt = expiresAt;
+        }
+
+        @SuppressWarnings("unchecked")
+        private <T> List<T> rows() {
+            return (List<T>) rows;
+        }
+
+        private boolean isExpired(long now) {
+            return now - expiresAt >= 0;
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package study.querydsl.cache;
+
+import org.ehcache.jsr107.EhcacheCachingProvider;
+import org.ehcache.xml.XmlConfiguration;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.Resource;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.io.IOException;
+import java.net.URI;
+
+/**
+ * hibernate 2차 캐시가 사용할 CacheManager 를 애플리케이션 컨텍스트마다 따로 만든다.
+ *
+ * hibernate 가 uri 로 CacheManager 를 직접 얻으면 같은 JVM 의 모든 EntityManagerFactory 가 하나를 공유한다.
+ * (다른 DB 를 보는 테스트 컨텍스트끼리 같은 id 의 팀을 주고받고, 하나가 닫히면 CacheManager 도 닫힌다)
+ * CacheManager 는 EntityManagerFactory 가 닫힐 때 함께 닫힌다. (빈 destroy 에서 다시 닫아도 아무 일도 하지 않는다)
+ */
+@Configuration
+@ConditionalOnProperty(name = "spring.jpa.properties.hibernate.cache.use_second_level_cache", havingValue = "true")
+public class SecondLevelCacheConfig {
+
+    @Bean(destroyMethod = "close")
+    public CacheManager secondLevelCacheManager(ApplicationContext context,
+                                                @Value("${app.second-level-cache.config:classpath:ehcache.xml}") Resource config)
+            throws IOException {
+        EhcacheCachingProvider provider = (EhcacheCachingProvider) Caching.getCachingProvider(
+                EhcacheCachingProvider.class.getName());
+        ClassLoader classLoader = getClass().getClassLoader();
+        // uri 는 CacheManager 를 구분하는 이름으로만 쓰인다.
+        URI uri = URI.create("urn:second-level-cache:" + Integer.toHexString(System.identityHashCode(context)));
+        return provider.getCacheManager(uri, new XmlConfiguration(config.getURL(), classLoader));
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheManagerCustomizer(CacheManager secondLevelCacheManager) {
+        return properties -> properties.put(ConfigSettings.CACHE_MANAGER, secondLevelCacheManager);
+    }
+}
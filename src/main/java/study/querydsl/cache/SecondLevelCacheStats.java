@@ -0,0 +1,40 @@
+package study.querydsl.cache;
+
+import lombok.Getter;
+import lombok.ToString;
+import org.hibernate.stat.Statistics;
+
+/**
+ * hibernate 2차 캐시 / 쿼리 계획 캐시 통계 스냅샷 (hibernate.generate_statistics=true 일 때만 집계된다)
+ */
+@Getter
+@ToString
+public class SecondLevelCacheStats {
+    private final long hits;
+    private final long misses;
+    private final long puts;
+    private final long queryPlanHits;
+    private final long queryPlanMisses;
+
+    public SecondLevelCacheStats(long hits, long misses, long puts, long queryPlanHits, long queryPlanMisses) {
+        this.hits = hits;
+        this.misses = misses;
+        this.puts = puts;
+        this.queryPlanHits = queryPlanHits;
+        this.queryPlanMisses = queryPlanMisses;
+    }
+
+    public static SecondLevelCacheStats of(Statistics statistics) {
+        return new SecondLevelCacheStats(
+                statistics.getSecondLevelCacheHitCount(),
+                statistics.getSecondLevelCacheMissCount(),
+                statistics.getSecondLevelCachePutCount(),
+                statistics.getQueryPlanCacheHitCount(),
+                statistics.getQueryPlanCacheMissCount());
+    }
+
+    public double getHitRate() {
+        long requests = hits + misses;
+        return requests == 0 ? 0 : (double) hits / requests;
+    }
+}
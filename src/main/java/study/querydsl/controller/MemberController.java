@@ -0,0 +1,33 @@
+package study.querydsl.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import study.querydsl.service.MemberAgeWriteBehind;
+import study.querydsl.service.WriteBehindFullException;
+
+@RestController
+@RequiredArgsConstructor
+public class MemberController {
+
+    private final MemberAgeWriteBehind memberAgeWriteBehind;
+
+    /**
+     * 나이 변경은 바로 반영되지 않고 write-behind 로 모아서 반영된다. (202 Accepted)
+     * 대기열이 가득 차면 503 으로 거절한다.
+     */
+    @PutMapping("/members/{memberId}/age")
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    public void changeAge(@PathVariable Long memberId, @RequestParam int age) {
+        try {
+            memberAgeWriteBehind.enqueue(memberId, age);
+        } catch (WriteBehindFullException e) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, e.getMessage(), e);
+        }
+    }
+}
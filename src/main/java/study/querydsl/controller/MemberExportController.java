@@ -0,0 +1,38 @@
+package study.querydsl.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import study.querydsl.service.ExportFormat;
+import study.querydsl.service.MemberExportService;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+@RestController
+@RequiredArgsConstructor
+public class MemberExportController {
+
+    private final MemberExportService memberExportService;
+
+    @GetMapping("/members/export")
+    public void export(@RequestParam(defaultValue = "csv") String format,
+                       HttpServletResponse response) throws IOException {
+        ExportFormat exportFormat;
+        try {
+            exportFormat = ExportFormat.from(format);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "unsupported format: " + format);
+        }
+
+        response.setContentType(exportFormat.getContentType());
+        response.setCharacterEncoding("UTF-8");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                "attachment; filename=\"members." + exportFormat.getExtension() + "\"");
+        memberExportService.export(exportFormat, response.getOutputStream());
+    }
+}
@@ -0,0 +1,59 @@
+package study.querydsl.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.util.StringUtils;
+import study.querydsl.dto.MemberDto;
+import study.querydsl.metrics.StatementBudget;
+import study.querydsl.repository.MemberQueryRepository;
+import study.querydsl.search.UsernameIndex;
+
+import java.util.List;
+
+/**
+ * 회원 이름 검색, prefix(접두어) 또는 contains(부분 문자열) 중 하나를 준다.
+ */
+@RestController
+@RequiredArgsConstructor
+public class MemberSearchController {
+
+    private static final int MAX_LIMIT = 1000;
+
+    private final UsernameIndex usernameIndex;
+    private final MemberQueryRepository memberQueryRepository;
+
+    @StatementBudget(maxStatements = 0)
+    @GetMapping("/members/search/ids")
+    public List<Long> searchIds(@RequestParam(required = false) String prefix,
+                                @RequestParam(required = false) String contains,
+                                @RequestParam(defaultValue = "100") int limit) {
+        return findIds(prefix, contains, limit);
+    }
+
+    /**
+     * 인덱스에서 찾은 id 를 in 쿼리 한 번으로 조회한다.
+     */
+    @StatementBudget(maxStatements = 1)
+    @GetMapping("/members/search")
+    public List<MemberDto> search(@RequestParam(required = false) String prefix,
+                                  @RequestParam(required = false) String contains,
+                                  @RequestParam(defaultValue = "100") int limit) {
+        return memberQueryRepository.findDtosByIds(findIds(prefix, contains, limit));
+    }
+
+    private List<Long> findIds(String prefix, String contains, int limit) {
+        if (StringUtils.hasLength(prefix) == StringUtils.hasLength(contains)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "either prefix or contains is required");
+        }
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "limit must be between 1 and " + MAX_LIMIT);
+        }
+        return StringUtils.hasLength(prefix)
+                ? usernameIndex.findIdsByPrefix(prefix, limit)
+                : usernameIndex.findIdsContaining(contains, limit);
+    }
+}
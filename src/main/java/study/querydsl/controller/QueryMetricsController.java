@@ -0,0 +1,92 @@
+package study.querydsl.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.hibernate.SessionFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import study.querydsl.cache.QueryCacheStats;
+import study.querydsl.cache.QueryResultCache;
+import study.querydsl.cache.SecondLevelCacheStats;
+import study.querydsl.metrics.QueryShapeRegistry;
+import study.querydsl.metrics.QueryShapeSnapshot;
+import study.querydsl.service.MemberAgeWriteBehind;
+import study.querydsl.service.WriteBehindStats;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.Comparator;
+import java.util.List;
+
+@RestController
+@RequiredArgsConstructor
+public class QueryMetricsController {
+
+    private static final int MAX_LIMIT = 1000;
+
+    private final QueryShapeRegistry queryShapeRegistry;
+    private final QueryResultCache queryResultCache;
+    private final MemberAgeWriteBehind memberAgeWriteBehind;
+    private final EntityManagerFactory entityManagerFactory;
+
+    /**
+     * 쿼리 모양별 통계, 기본은 누적 실행 시간이 큰 순서
+     * sort : total | p99 | max | count | errors
+     */
+    @GetMapping("/metrics/queries")
+    public List<QueryShapeSnapshot> queries(@RequestParam(defaultValue = "total") String sort,
+                                            @RequestParam(defaultValue = "20") int limit) {
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "limit must be between 1 and " + MAX_LIMIT);
+        }
+        return queryShapeRegistry.snapshots(orderOf(sort), limit);
+    }
+
+    @DeleteMapping("/metrics/queries")
+    public void reset() {
+        queryShapeRegistry.reset();
+    }
+
+    @GetMapping("/metrics/query-cache")
+    public QueryCacheStats queryCache() {
+        return queryResultCache.stats();
+    }
+
+    @DeleteMapping("/metrics/query-cache")
+    public void clearQueryCache() {
+        queryResultCache.clear();
+    }
+
+    @GetMapping("/metrics/second-level-cache")
+    public SecondLevelCacheStats secondLevelCache() {
+        return SecondLevelCacheStats.of(entityManagerFactory.unwrap(SessionFactory.class).getStatistics());
+    }
+
+    @DeleteMapping("/metrics/second-level-cache")
+    public void clearSecondLevelCache() {
+        entityManagerFactory.getCache().evictAll();
+        entityManagerFactory.unwrap(SessionFactory.class).getStatistics().clear();
+    }
+
+    @GetMapping("/metrics/write-behind")
+    public WriteBehindStats writeBehind() {
+        return memberAgeWriteBehind.stats();
+    }
+
+    private static Comparator<QueryShapeSnapshot> orderOf(String sort) {
+        switch (sort) {
+            case "p99":
+                return Comparator.comparingLong(QueryShapeSnapshot::getP99Micros).reversed();
+            case "max":
+                return Comparator.comparingLong(QueryShapeSnapshot::getMaxMicros).reversed();
+            case "count":
+                return Comparator.comparingLong(QueryShapeSnapshot::getExecutions).reversed();
+            case "errors":
+                return Comparator.comparingLong(QueryShapeSnapshot::getErrors).reversed();
+            default:
+                return Comparator.comparingLong(QueryShapeSnapshot::getTotalMillis).reversed();
+        }
+    }
+}
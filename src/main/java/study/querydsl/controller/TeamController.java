@@ -0,0 +1,55 @@
+package study.querydsl.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.web.PageableDefault;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RestController;
+import study.querydsl.dto.TeamMembersDto;
+import study.querydsl.metrics.StatementBudget;
+import study.querydsl.repository.TeamQueryRepository;
+import study.querydsl.stats.TeamStatistics;
+import study.querydsl.stats.TeamStatsRegistry;
+
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequiredArgsConstructor
+public class TeamController {
+
+    private final TeamQueryRepository teamQueryRepository;
+    private final TeamStatsRegistry teamStatsRegistry;
+
+    @StatementBudget(maxStatements = 2)
+    @GetMapping("/teams")
+    public Slice<TeamMembersDto> teams(@PageableDefault(size = 20) Pageable pageable) {
+        return teamQueryRepository.findTeamsWithMembers(pageable);
+    }
+
+    @StatementBudget(maxStatements = 0)
+    @GetMapping("/teams/{teamId}/stats")
+    public TeamStatistics teamStats(@PathVariable Long teamId) {
+        return teamStatsRegistry.get(teamId);
+    }
+
+    @StatementBudget(maxStatements = 0)
+    @GetMapping("/teams/stats")
+    public Map<Long, TeamStatistics> allTeamStats() {
+        return teamStatsRegistry.getAll();
+    }
+
+    @GetMapping("/teams/stats/verify")
+    public List<String> verifyTeamStats() {
+        return teamStatsRegistry.verify();
+    }
+
+    @PostMapping("/teams/stats/rebuild")
+    public Map<Long, TeamStatistics> rebuildTeamStats() {
+        teamStatsRegistry.rebuild();
+        return teamStatsRegistry.getAll();
+    }
+}
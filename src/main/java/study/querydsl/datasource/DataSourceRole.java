@@ -0,0 +1,5 @@
+package study.querydsl.datasource;
+
+public enum DataSourceRole {
+    PRIMARY, REPLICA
+}
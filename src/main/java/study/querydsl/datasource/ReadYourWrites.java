@@ -0,0 +1,56 @@
+package study.querydsl.datasource;
+
+import java.util.function.Supplier;
+
+/**
+ * 요청 하나 안에서 쓰기 트랜잭션이 있었는지 기억한다.
+ * 쓰기 이후의 읽기 전용 트랜잭션은 복제 지연으로 방금 쓴 값이 안 보일 수 있으므로 primary 로 보낸다.
+ *
+ * begin() ~ end() 사이(ReadYourWritesFilter 가 요청마다 연다)에서만 기록한다.
+ * 그 밖의 스레드(스케줄러, 작업 스레드)는 기록하지 않아서 스레드가 재사용되어도 상태가 남지 않는다.
+ */
+public final class ReadYourWrites {
+
+    private static final ThreadLocal<boolean[]> WRITTEN = new ThreadLocal<>();
+
+    private ReadYourWrites() {
+    }
+
+    public static void begin() {
+        WRITTEN.set(new boolean[1]);
+    }
+
+    public static void end() {
+        WRITTEN.remove();
+    }
+
+    public static void markWritten() {
+        boolean[] written = WRITTEN.get();
+        if (written != null) {
+            written[0] = true;
+        }
+    }
+
+    public static boolean isWritten() {
+        boolean[] written = WRITTEN.get();
+        return written != null && written[0];
+    }
+
+    /**
+     * 현재 스레드의 쓰기 여부를 다른 스레드에서 실행할 작업에 넘긴다. (ParallelQueryExecutor 등)
+     */
+    public static <T> Supplier<T> propagate(Supplier<T> task) {
+        if (!isWritten()) {
+            return task;
+        }
+        return () -> {
+            begin();
+            markWritten();
+            try {
+                return task.get();
+            } finally {
+                end();
+            }
+        };
+    }
+}
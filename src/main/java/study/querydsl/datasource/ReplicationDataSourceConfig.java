@@ -0,0 +1,81 @@
+package study.querydsl.datasource;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * app.datasource.routing.enabled=true 이면 spring.datasource 대신 primary / replica 두 풀을 만든다.
+ *
+ * <pre>
+ * app.datasource.routing:
+ *   enabled: true
+ *   read-your-writes: true
+ *   primary:
+ *     jdbc-url: jdbc:h2:mem:primary
+ *     username: sa
+ *     maximum-pool-size: 10
+ *   replica:
+ *     jdbc-url: jdbc:h2:mem:replica
+ *     username: sa
+ * </pre>
+ *
+ * primary / replica 아래는 HikariConfig 프로퍼티를 그대로 사용한다.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.datasource.routing.enabled", havingValue = "true")
+public class ReplicationDataSourceConfig {
+
+    private static final String PREFIX = "app.datasource.routing.";
+
+    @Bean
+    public ReplicationDataSources replicationDataSources(Environment environment) {
+        Binder binder = Binder.get(environment);
+        HikariDataSource primary = pool(binder, "primary");
+        try {
+            return new ReplicationDataSources(primary, pool(binder, "replica"));
+        } catch (RuntimeException e) {
+            primary.close();
+            throw e;
+        }
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ReplicationDataSources pools) {
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(DataSourceRole.PRIMARY, pools.getPrimary());
+        targets.put(DataSourceRole.REPLICA, pools.getReplica());
+
+        ReplicationRoutingDataSource routing = new ReplicationRoutingDataSource();
+        routing.setTargetDataSources(targets);
+        routing.setDefaultTargetDataSource(pools.getPrimary());
+        routing.afterPropertiesSet();
+        return new LazyConnectionDataSourceProxy(routing);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = PREFIX + "read-your-writes", havingValue = "true", matchIfMissing = true)
+    public ReadYourWritesFilter readYourWritesFilter() {
+        return new ReadYourWritesFilter();
+    }
+
+    private static HikariDataSource pool(Binder binder, String role) {
+        HikariConfig config = binder.bind(PREFIX + role, HikariConfig.class)
+                .orElseThrow(() -> new IllegalStateException(PREFIX + role + " is not configured"));
+        if (config.getPoolName() == null) {
+            config.setPoolName(role);
+        }
+        return new HikariDataSource(config);
+    }
+}
@@ -0,0 +1,34 @@
+package study.querydsl.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import java.io.Closeable;
+
+/**
+ * primary / replica 커넥션 풀
+ * 풀은 DataSource 빈으로 등록하지 않는다. (DataSource 빈은 라우팅 DataSource 하나, p6spy 도 그것만 감싼다)
+ */
+public class ReplicationDataSources implements Closeable {
+
+    private final HikariDataSource primary;
+    private final HikariDataSource replica;
+
+    public ReplicationDataSources(HikariDataSource primary, HikariDataSource replica) {
+        this.primary = primary;
+        this.replica = replica;
+    }
+
+    public HikariDataSource getPrimary() {
+        return primary;
+    }
+
+    public HikariDataSource getReplica() {
+        return replica;
+    }
+
+    @Override
+    public void close() {
+        replica.close();
+        primary.close();
+    }
+}
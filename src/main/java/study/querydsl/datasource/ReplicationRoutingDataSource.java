@@ -0,0 +1,29 @@
+package study.querydsl.datasource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * 읽기 전용 트랜잭션(@Transactional(readOnly = true))은 replica, 그 밖에는 primary 로 보낸다.
+ *
+ * 커넥션을 고르는 시점에 트랜잭션의 readOnly 여부가 정해져 있어야 하므로
+ * LazyConnectionDataSourceProxy 로 감싸서 첫 SQL 을 실행할 때 커넥션을 얻게 한다.
+ */
+public class ReplicationRoutingDataSource extends AbstractRoutingDataSource {
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return currentRole();
+    }
+
+    public static DataSourceRole currentRole() {
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly() && !ReadYourWrites.isWritten()) {
+            return DataSourceRole.REPLICA;
+        }
+        if (TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            ReadYourWrites.markWritten();
+        }
+        return DataSourceRole.PRIMARY;
+    }
+}
@@ -0,0 +1,20 @@
+package study.querydsl.dto;
+
+import com.querydsl.core.annotations.QueryProjection;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+public class MemberDto {
+    private Long id;
+    private String username;
+    private int age;
+
+    @QueryProjection
+    public MemberDto(Long id, String username, int age) {
+        this.id = id;
+        this.username = username;
+        this.age = age;
+    }
+}
@@ -0,0 +1,29 @@
+package study.querydsl.dto;
+
+import com.querydsl.core.annotations.QueryProjection;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 회원 + 팀 조회용 DTO
+ * @QueryProjection 으로 QMemberTeamDto 가 생성되어, 생성자 파라미터 타입을 컴파일 시점에 검사한다.
+ * 엔티티가 아니므로 영속성 컨텍스트 스냅샷, 변경 감지(dirty checking) 대상이 아니다.
+ */
+@Data
+@NoArgsConstructor
+public class MemberTeamDto {
+    private Long memberId;
+    private String username;
+    private int age;
+    private Long teamId;
+    private String teamName;
+
+    @QueryProjection
+    public MemberTeamDto(Long memberId, String username, int age, Long teamId, String teamName) {
+        this.memberId = memberId;
+        this.username = username;
+        this.age = age;
+        this.teamId = teamId;
+        this.teamName = teamName;
+    }
+}
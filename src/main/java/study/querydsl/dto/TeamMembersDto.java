@@ -0,0 +1,24 @@
+package study.querydsl.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 팀 + 소속 회원 목록
+ */
+@Data
+@NoArgsConstructor
+public class TeamMembersDto {
+    private Long teamId;
+    private String name;
+    private List<MemberDto> members = new ArrayList<>();
+
+    public TeamMembersDto(Long teamId, String name, List<MemberDto> members) {
+        this.teamId = teamId;
+        this.name = name;
+        this.members = members;
+    }
+}
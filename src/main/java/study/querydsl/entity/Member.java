@@ -1,15 +1,25 @@
 package study.querydsl.entity;
 
 import lombok.*;
+import org.hibernate.Hibernate;
+
 import javax.persistence.*;
 
 @Entity
 @Getter @Setter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 @ToString(of = {"id", "username", "age"})
+@Table(indexes = {
+        @Index(name = "idx_member_username", columnList = "username"),
+        // 키셋 페이징 기본 정렬(MemberQueryRepository.AGE_DESC_USERNAME_ASC)과 같은 순서, age 만 쓰는 조건도 이 인덱스를 탄다.
+        // @Index 로는 NULLS LAST 를 지정할 수 없어서, username 의 nulls last 는 DB 의 기본 null 정렬(HIGH)에 맡긴다.
+        @Index(name = "idx_member_age_username_id", columnList = "age desc, username asc, member_id asc"),
+        @Index(name = "idx_member_team_id", columnList = "team_id")
+})
 public class Member {
     @Id
-    @GeneratedValue
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "member_seq_generator")
+    @SequenceGenerator(name = "member_seq_generator", sequenceName = "member_seq", allocationSize = 50)
     @Column(name = "member_id")
     private Long id;
     private String username;
@@ -31,9 +41,19 @@ public class Member {
             changeTeam(team);
         }
     }
+    /**
+     * 연관관계 편의 메서드
+     * 팀이 아직 로딩되지 않은 프록시이거나 team.members 가 아직 로딩되지 않았으면 컬렉션을 건드리지 않는다.
+     * (팀 하나에 회원을 붙이려고 팀의 회원 전체를 조회하지 않기 위해)
+     */
     public void changeTeam(Team team) {
+        if (this.team != null && Hibernate.isInitialized(this.team)) {
+            this.team.removeMember(this);
+        }
         this.team = team;
-        team.getMembers().add(this);
+        if (team != null && Hibernate.isInitialized(team)) {
+            team.addMember(this);
+        }
     }
 }
 
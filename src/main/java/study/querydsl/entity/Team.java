@@ -1,15 +1,28 @@
 package study.querydsl.entity;
 
 import lombok.*;
+import org.hibernate.Hibernate;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
 import javax.persistence.*;
 import java.util.ArrayList;
 import java.util.List;
+/**
+ * 2차 캐시 대상 (영역 설정은 ehcache.xml), 새 영속성 컨텍스트에서 member.team 을 초기화할 때 DB 대신 캐시를 본다.
+ * members 컬렉션은 캐시하지 않는다.
+ */
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Getter @Setter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 @ToString(of = {"id", "name"})
+@Table(indexes = @Index(name = "idx_team_name", columnList = "name"))
 public class Team {
-    @Id @GeneratedValue
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "team_seq_generator")
+    @SequenceGenerator(name = "team_seq_generator", sequenceName = "team_seq", allocationSize = 50)
     @Column(name = "team_id")
     private Long id;
     private String name;
@@ -20,4 +33,20 @@ public class Team {
     public Team(String name) {
         this.name = name;
     }
+
+    /**
+     * members 가 이미 로딩된 경우에만 메모리상의 컬렉션을 맞춘다.
+     * 로딩 전이라면 연관관계 주인(Member.team)만 바뀌고, 컬렉션은 flush 이후 로딩될 때 DB 에서 반영된다.
+     */
+    void addMember(Member member) {
+        if (Hibernate.isInitialized(members)) {
+            members.add(member);
+        }
+    }
+
+    void removeMember(Member member) {
+        if (Hibernate.isInitialized(members)) {
+            members.remove(member);
+        }
+    }
 }
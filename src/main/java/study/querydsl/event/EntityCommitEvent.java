@@ -0,0 +1,57 @@
+package study.querydsl.event;
+
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * 커밋된 엔티티 변경 한 건 (트랜잭션이 롤백되면 발행되지 않는다)
+ * 상태(state)는 프로퍼티 이름 -> 값이고, 연관 엔티티는 엔티티 대신 id 가 들어 있다.
+ * UPDATE 인데 이전 상태를 알 수 없는 경우 oldState 는 null 이다.
+ */
+@Getter
+@ToString
+public class EntityCommitEvent {
+
+    public enum Kind {
+        INSERT, UPDATE, DELETE
+    }
+
+    private final Class<?> entityType;
+    private final Object id;
+    private final Kind kind;
+    private final Map<String, Object> oldState;
+    private final Map<String, Object> state;
+
+    public EntityCommitEvent(Class<?> entityType, Object id, Kind kind,
+                             Map<String, Object> oldState, Map<String, Object> state) {
+        this.entityType = entityType;
+        this.id = id;
+        this.kind = kind;
+        this.oldState = oldState;
+        this.state = state == null ? Collections.emptyMap() : state;
+    }
+
+    public boolean isFor(Class<?> type) {
+        return type.isAssignableFrom(entityType);
+    }
+
+    public boolean hasOldState() {
+        return oldState != null;
+    }
+
+    public Object oldValue(String property) {
+        return oldState == null ? null : oldState.get(property);
+    }
+
+    public Object newValue(String property) {
+        return state.get(property);
+    }
+
+    public boolean changed(String property) {
+        return oldState == null || !Objects.equals(oldState.get(property), state.get(property));
+    }
+}
@@ -0,0 +1,132 @@
+package study.querydsl.event;
+
+import lombok.RequiredArgsConstructor;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.type.Type;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PersistenceUnitUtil;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Hibernate 커밋 후 이벤트(POST_COMMIT_INSERT/UPDATE/DELETE)를 스프링 이벤트(EntityCommitEvent)로 바꿔서 발행한다.
+ * JPA @PostPersist 등과 달리 커밋된 변경만 전달되고, UPDATE 의 이전 상태를 함께 받을 수 있다.
+ * 벌크 연산(JPQL update/delete, JDBC)은 여기로 오지 않는다.
+ */
+@Component
+@RequiredArgsConstructor
+public class EntityCommitEventPublisher implements PostCommitInsertEventListener,
+        PostCommitUpdateEventListener, PostCommitDeleteEventListener {
+
+    private final EntityManagerFactory emf;
+    private final ApplicationEventPublisher publisher;
+
+    private final AtomicBoolean registered = new AtomicBoolean();
+
+    /**
+     * 컨텍스트 초기화가 끝난 뒤에 등록한다.
+     * JPA 를 지연 부트스트랩(bootstrap-mode: deferred)하면 EntityManagerFactory 가 백그라운드에서 만들어지는데,
+     * 빈 초기화 중에 기다리지 않기 위해서다. (이 빈이 lazy 여도 이벤트를 받으면서 만들어진다)
+     */
+    @EventListener(ContextRefreshedEvent.class)
+    public void register() {
+        if (!registered.compareAndSet(false, true)) {
+            return;
+        }
+        EventListenerRegistry registry = emf.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_COMMIT_INSERT, this);
+        registry.appendListeners(EventType.POST_COMMIT_UPDATE, this);
+        registry.appendListeners(EventType.POST_COMMIT_DELETE, this);
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        EntityPersister persister = event.getPersister();
+        publish(persister, event.getId(), EntityCommitEvent.Kind.INSERT,
+                null, toMap(persister, event.getState()));
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        EntityPersister persister = event.getPersister();
+        publish(persister, event.getId(), EntityCommitEvent.Kind.UPDATE,
+                event.getOldState() == null ? null : toMap(persister, event.getOldState()),
+                toMap(persister, event.getState()));
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        EntityPersister persister = event.getPersister();
+        publish(persister, event.getId(), EntityCommitEvent.Kind.DELETE,
+                toMap(persister, event.getDeletedState()), null);
+    }
+
+    @Override
+    public void onPostInsertCommitFailed(PostInsertEvent event) {
+    }
+
+    @Override
+    public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+    }
+
+    @Override
+    public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+    }
+
+    @Override
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        return true;
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return true;
+    }
+
+    private void publish(EntityPersister persister, Object id, EntityCommitEvent.Kind kind,
+                         Map<String, Object> oldState, Map<String, Object> state) {
+        publisher.publishEvent(new EntityCommitEvent(persister.getMappedClass(), id, kind, oldState, state));
+    }
+
+    /**
+     * 연관 엔티티는 id 로 바꾸고, 컬렉션은 제외한다.
+     */
+    private Map<String, Object> toMap(EntityPersister persister, Object[] values) {
+        if (values == null) {
+            return null;
+        }
+        String[] names = persister.getPropertyNames();
+        Type[] types = persister.getPropertyTypes();
+        PersistenceUnitUtil util = emf.getPersistenceUnitUtil();
+
+        Map<String, Object> state = new HashMap<>(names.length * 2);
+        for (int i = 0; i < names.length; i++) {
+            if (types[i].isCollectionType()) {
+                continue;
+            }
+            Object value = values[i];
+            if (value != null && types[i].isEntityType()) {
+                value = util.getIdentifier(value);
+            }
+            state.put(names[i], value);
+        }
+        return state;
+    }
+}
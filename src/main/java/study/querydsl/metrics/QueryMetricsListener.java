@@ -0,0 +1,44 @@
+package study.querydsl.metrics;
+
+import com.p6spy.engine.common.PreparedStatementInformation;
+import com.p6spy.engine.common.ResultSetInformation;
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.SimpleJdbcEventListener;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.sql.SQLException;
+
+/**
+ * p6spy 이벤트로 쿼리 모양별 응답시간, 행 수, 에러 수를 기록한다.
+ * (p6spy-spring-boot-starter 가 JdbcEventListener 빈을 자동으로 등록한다)
+ */
+@Component
+@RequiredArgsConstructor
+public class QueryMetricsListener extends SimpleJdbcEventListener {
+
+    private final QueryShapeRegistry registry;
+
+    @Override
+    public void onAfterAnyExecute(StatementInformation statementInformation, long timeElapsedNanos, SQLException e) {
+        registry.statsFor(SqlShapes.fingerprint(statementInformation.getSql()))
+                .recordExecution(timeElapsedNanos, e != null);
+    }
+
+    @Override
+    public void onAfterExecuteUpdate(PreparedStatementInformation statementInformation, long timeElapsedNanos,
+                                     int rowCount, SQLException e) {
+        super.onAfterExecuteUpdate(statementInformation, timeElapsedNanos, rowCount, e);
+        if (rowCount > 0) {
+            registry.statsFor(SqlShapes.fingerprint(statementInformation.getSql())).recordRows(rowCount);
+        }
+    }
+
+    @Override
+    public void onAfterResultSetNext(ResultSetInformation resultSetInformation, long timeElapsedNanos,
+                                     boolean hasNext, SQLException e) {
+        if (hasNext) {
+            registry.statsFor(SqlShapes.fingerprint(resultSetInformation.getSql())).recordRows(1);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package study.querydsl.metrics;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * 쿼리 모양별 통계 저장소 (메모리)
+ * 모양 개수가 maxShapes 를 넘으면 이후의 새 모양은 OTHER 하나로 모은다.
+ */
+@Component
+public class QueryShapeRegistry {
+
+    public static final String OTHER = "<other>";
+
+    private final Map<String, QueryShapeStats> stats = new ConcurrentHashMap<>();
+    private final int maxShapes;
+
+    public QueryShapeRegistry(@Value("${app.metrics.query-shapes.max-shapes:2000}") int maxShapes) {
+        this.maxShapes = maxShapes;
+    }
+
+    public QueryShapeStats statsFor(String shape) {
+        QueryShapeStats existing = stats.get(shape);
+        if (existing != null) {
+            return existing;
+        }
+        String key = stats.size() < maxShapes ? shape : OTHER;
+        return stats.computeIfAbsent(key, QueryShapeStats::new);
+    }
+
+    public List<QueryShapeSnapshot> snapshots(Comparator<QueryShapeSnapshot> order, int limit) {
+        return stats.values().stream()
+                .map(QueryShapeStats::snapshot)
+                .sorted(order)
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+
+    public void reset() {
+        stats.clear();
+    }
+}
@@ -0,0 +1,36 @@
+package study.querydsl.metrics;
+
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * /metrics/queries 응답 한 건 (시간 단위: totalMillis 외에는 마이크로초)
+ */
+@Getter
+@ToString
+public class QueryShapeSnapshot {
+    private final String shape;
+    private final long executions;
+    private final long errors;
+    private final long rows;
+    private final long totalMillis;
+    private final double meanMicros;
+    private final long p50Micros;
+    private final long p95Micros;
+    private final long p99Micros;
+    private final long maxMicros;
+
+    public QueryShapeSnapshot(String shape, long executions, long errors, long rows, long totalMillis,
+                              double meanMicros, long p50Micros, long p95Micros, long p99Micros, long maxMicros) {
+        this.shape = shape;
+        this.executions = executions;
+        this.errors = errors;
+        this.rows = rows;
+        this.totalMillis = totalMillis;
+        this.meanMicros = meanMicros;
+        this.p50Micros = p50Micros;
+        this.p95Micros = p95Micros;
+        this.p99Micros = p99Micros;
+        this.maxMicros = maxMicros;
+    }
+}
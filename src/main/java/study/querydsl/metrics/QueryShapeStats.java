@@ -0,0 +1,43 @@
+package study.querydsl.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 쿼리 모양 하나의 누적 통계
+ */
+public class QueryShapeStats {
+
+    private final String shape;
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LongAdder rows = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+
+    public QueryShapeStats(String shape) {
+        this.shape = shape;
+    }
+
+    public void recordExecution(long elapsedNanos, boolean failed) {
+        latency.recordNanos(elapsedNanos);
+        if (failed) {
+            errors.increment();
+        }
+    }
+
+    public void recordRows(long count) {
+        rows.add(count);
+    }
+
+    public QueryShapeSnapshot snapshot() {
+        return new QueryShapeSnapshot(
+                shape,
+                latency.getCount(),
+                errors.sum(),
+                rows.sum(),
+                latency.getSumMicros() / 1_000,
+                latency.getMeanMicros(),
+                latency.percentileMicros(50),
+                latency.percentileMicros(95),
+                latency.percentileMicros(99),
+                latency.getMaxMicros());
+    }
+}
@@ -0,0 +1,101 @@
+package study.querydsl.metrics;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * SQL 을 "모양(shape)" 으로 정규화한다.
+ * - 주석 제거 (use_sql_comments 로 붙는 JPQL 주석 포함)
+ * - 문자열/숫자 리터럴 -> ?
+ * - 공백 정리, 소문자 변환
+ * - in (?, ?, ?) -> in (?...)  (in 절 파라미터 개수가 달라도 같은 모양)
+ *
+ * Hibernate 가 만드는 SQL 문자열은 종류가 많지 않으므로 원문 -> 모양 결과를 캐시해서 재계산하지 않는다.
+ */
+public final class SqlShapes {
+
+    private static final Pattern IN_LIST = Pattern.compile("in \\(\\?(?: ?, ?\\?)+\\)");
+    private static final int MAX_CACHED = 10_000;
+    private static final Map<String, String> CACHE = new ConcurrentHashMap<>();
+
+    private SqlShapes() {
+    }
+
+    public static String fingerprint(String sql) {
+        if (sql == null) {
+            return "";
+        }
+        String cached = CACHE.get(sql);
+        if (cached != null) {
+            return cached;
+        }
+        String shape = normalize(sql);
+        if (CACHE.size() < MAX_CACHED) {
+            CACHE.put(sql, shape);
+        }
+        return shape;
+    }
+
+    static String normalize(String sql) {
+        StringBuilder out = new StringBuilder(sql.length());
+        boolean pendingSpace = false;
+        int length = sql.length();
+
+        for (int i = 0; i < length; i++) {
+            char c = sql.charAt(i);
+            char next = i + 1 < length ? sql.charAt(i + 1) : '\0';
+
+            if (c == '/' && next == '*') {
+                int end = sql.indexOf("*/", i + 2);
+                i = end < 0 ? length : end + 1;
+                pendingSpace = true;
+            } else if (c == '-' && next == '-') {
+                int end = sql.indexOf('\n', i + 2);
+                i = end < 0 ? length : end;
+                pendingSpace = true;
+            } else if (Character.isWhitespace(c)) {
+                pendingSpace = true;
+            } else if (c == '\'') {
+                i = skipString(sql, i);
+                pendingSpace = append(out, '?', pendingSpace);
+            } else if (Character.isDigit(c) && (pendingSpace || out.length() == 0
+                    || !isIdentifierPart(out.charAt(out.length() - 1)))) {
+                while (i + 1 < length && (Character.isDigit(sql.charAt(i + 1)) || sql.charAt(i + 1) == '.')) {
+                    i++;
+                }
+                pendingSpace = append(out, '?', pendingSpace);
+            } else {
+                pendingSpace = append(out, Character.toLowerCase(c), pendingSpace);
+            }
+        }
+        return IN_LIST.matcher(out).replaceAll("in (?...)");
+    }
+
+    private static boolean append(StringBuilder out, char c, boolean pendingSpace) {
+        if (pendingSpace && out.length() > 0) {
+            out.append(' ');
+        }
+        out.append(c);
+        return false;
+    }
+
+    private static int skipString(String sql, int start) {
+        int i = start + 1;
+        while (i < sql.length()) {
+            if (sql.charAt(i) == '\'') {
+                if (i + 1 < sql.length() && sql.charAt(i + 1) == '\'') {
+                    i += 2;
+                    continue;
+                }
+                return i;
+            }
+            i++;
+        }
+        return sql.length();
+    }
+
+    private static boolean isIdentifierPart(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '$';
+    }
+}
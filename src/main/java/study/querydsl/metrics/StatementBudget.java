@@ -0,0 +1,34 @@
+package study.querydsl.metrics;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 메서드(컨트롤러, 서비스, 테스트) 한 번 실행 동안 나갈 수 있는 SQL 수 제한
+ *
+ * <pre>
+ * &#64;StatementBudget(maxStatements = 2)
+ * &#64;GetMapping("/teams")
+ * public Slice&lt;TeamMembersDto&gt; teams(...)
+ * </pre>
+ *
+ * maxRepeats : 같은 모양의 select 가 몇 번까지 허용되는지 (N+1 감지), 기본 1 번
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.METHOD, ElementType.TYPE})
+public @interface StatementBudget {
+
+    int maxStatements() default Integer.MAX_VALUE;
+
+    int maxRepeats() default 1;
+
+    Action action() default Action.LOG;
+
+    enum Action {
+        LOG, FAIL
+    }
+}
@@ -0,0 +1,47 @@
+package study.querydsl.metrics;
+
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.util.List;
+
+/**
+ * @StatementBudget 이 붙은 메서드 실행 동안 SQL 을 세고, 예산을 넘으면 로그를 남기거나 예외를 던진다.
+ * 컨트롤러 메서드라면 응답을 쓰기 전에 검사하므로 FAIL 이면 요청이 실패한다.
+ */
+@Slf4j
+@Aspect
+@Component
+public class StatementBudgetAspect {
+
+    @Around("@annotation(study.querydsl.metrics.StatementBudget) || @within(study.querydsl.metrics.StatementBudget)")
+    public Object checkBudget(ProceedingJoinPoint joinPoint) throws Throwable {
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        StatementBudget budget = AnnotatedElementUtils.findMergedAnnotation(method, StatementBudget.class);
+        if (budget == null) {
+            budget = AnnotatedElementUtils.findMergedAnnotation(joinPoint.getTarget().getClass(), StatementBudget.class);
+        }
+
+        String name = joinPoint.getSignature().toShortString();
+        Object result;
+        List<String> violations;
+        try (StatementScope scope = StatementScope.open(name)) {
+            result = joinPoint.proceed();
+            violations = scope.violationsOf(budget);
+        }
+
+        if (!violations.isEmpty()) {
+            if (budget.action() == StatementBudget.Action.FAIL) {
+                throw new StatementBudgetExceededException(name, violations);
+            }
+            log.warn("statement budget exceeded in {}: {}", name, violations);
+        }
+        return result;
+    }
+}
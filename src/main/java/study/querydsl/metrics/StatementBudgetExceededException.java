@@ -0,0 +1,17 @@
+package study.querydsl.metrics;
+
+import java.util.List;
+
+public class StatementBudgetExceededException extends RuntimeException {
+
+    private final List<String> violations;
+
+    public StatementBudgetExceededException(String scope, List<String> violations) {
+        super("statement budget exceeded in " + scope + ": " + String.join("; ", violations));
+        this.violations = violations;
+    }
+
+    public List<String> getViolations() {
+        return violations;
+    }
+}
@@ -0,0 +1,142 @@
+package study.querydsl.metrics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * 현재 스레드에서 실행되는 SQL 을 세는 범위(요청 하나, 테스트 하나, 메서드 하나)
+ * 범위는 중첩될 수 있고, SQL 은 열려 있는 모든 범위에 기록된다.
+ * 다른 스레드에서 실행되는 SQL (예: PageQueryExecutor 의 병렬 count) 은 세지 않는다.
+ *
+ * <pre>
+ * try (StatementScope scope = StatementScope.open("teams")) {
+ *     ...
+ *     assertEquals(scope.getStatementCount(), 2);
+ * }
+ * </pre>
+ *
+ * capture() 로 연 범위는 실행된 SQL 을 바인딩 값이 들어간 형태로 보관한다. (실행 계획 확인용)
+ */
+public final class StatementScope implements AutoCloseable {
+
+    private static final ThreadLocal<StatementScope> CURRENT = new ThreadLocal<>();
+
+    private final String name;
+    private final StatementScope parent;
+    private final Map<String, Integer> selectShapes = new LinkedHashMap<>();
+    private final List<String> statementsWithValues;
+    private int statements;
+    private int selects;
+
+    private StatementScope(String name, StatementScope parent, boolean capture) {
+        this.name = name;
+        this.parent = parent;
+        this.statementsWithValues = capture ? new ArrayList<>() : null;
+    }
+
+    public static StatementScope open(String name) {
+        return open(name, false);
+    }
+
+    public static StatementScope capture(String name) {
+        return open(name, true);
+    }
+
+    private static StatementScope open(String name, boolean capture) {
+        StatementScope scope = new StatementScope(name, CURRENT.get(), capture);
+        CURRENT.set(scope);
+        return scope;
+    }
+
+    public static boolean isActive() {
+        return CURRENT.get() != null;
+    }
+
+    static void record(String sql, Supplier<String> sqlWithValues) {
+        StatementScope scope = CURRENT.get();
+        if (scope == null) {
+            return;
+        }
+        String shape = SqlShapes.fingerprint(sql);
+        boolean select = shape.startsWith("select") || shape.startsWith("with");
+        String withValues = null;
+        for (; scope != null; scope = scope.parent) {
+            scope.add(shape, select);
+            if (scope.statementsWithValues != null) {
+                if (withValues == null) {
+                    withValues = sqlWithValues.get();
+                }
+                scope.statementsWithValues.add(withValues);
+            }
+        }
+    }
+
+    private void add(String shape, boolean select) {
+        statements++;
+        if (select) {
+            selects++;
+            selectShapes.merge(shape, 1, Integer::sum);
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getStatementCount() {
+        return statements;
+    }
+
+    public int getSelectCount() {
+        return selects;
+    }
+
+    /**
+     * capture() 로 연 범위에서 실행된 SQL (바인딩 값 포함), open() 으로 연 범위는 빈 목록
+     */
+    public List<String> getStatements() {
+        return statementsWithValues == null ? Collections.emptyList() : Collections.unmodifiableList(statementsWithValues);
+    }
+
+    /**
+     * maxRepeats 번보다 많이 실행된 select 모양과 실행 횟수
+     */
+    public Map<String, Integer> getRepeatedSelects(int maxRepeats) {
+        Map<String, Integer> repeated = new LinkedHashMap<>();
+        selectShapes.forEach((shape, count) -> {
+            if (count > maxRepeats) {
+                repeated.put(shape, count);
+            }
+        });
+        return repeated;
+    }
+
+    public List<String> violationsOf(int maxStatements, int maxRepeats) {
+        List<String> violations = new ArrayList<>();
+        if (statements > maxStatements) {
+            violations.add(statements + " statements (budget " + maxStatements + ")");
+        }
+        getRepeatedSelects(maxRepeats).forEach((shape, count) ->
+                violations.add("possible N+1: " + count + "x [" + shape + "]"));
+        return violations.isEmpty() ? Collections.emptyList() : violations;
+    }
+
+    public List<String> violationsOf(StatementBudget budget) {
+        return violationsOf(budget.maxStatements(), budget.maxRepeats());
+    }
+
+    @Override
+    public void close() {
+        if (CURRENT.get() == this) {
+            if (parent == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(parent);
+            }
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package study.querydsl.metrics;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * 모든 요청에서 같은 모양의 select 가 반복되면(N+1 의심) 경고 로그를 남긴다.
+ * 메서드 단위로 예산을 강제하려면 @StatementBudget 을 사용한다.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.statement-budget.detect-n-plus-one", havingValue = "true", matchIfMissing = true)
+public class StatementScopeFilter extends OncePerRequestFilter {
+
+    private final int repeatThreshold;
+
+    public StatementScopeFilter(@Value("${app.statement-budget.request-repeat-threshold:5}") int repeatThreshold) {
+        this.repeatThreshold = repeatThreshold;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        String name = request.getMethod() + " " + request.getRequestURI();
+        try (StatementScope scope = StatementScope.open(name)) {
+            filterChain.doFilter(request, response);
+
+            Map<String, Integer> repeated = scope.getRepeatedSelects(repeatThreshold);
+            if (!repeated.isEmpty()) {
+                log.warn("possible N+1 in {}: {} statements, repeated selects {}",
+                        name, scope.getStatementCount(), repeated);
+            }
+        }
+    }
+}
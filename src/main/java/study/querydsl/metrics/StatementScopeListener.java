@@ -0,0 +1,19 @@
+package study.querydsl.metrics;
+
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.SimpleJdbcEventListener;
+import org.springframework.stereotype.Component;
+
+import java.sql.SQLException;
+
+/**
+ * 열려 있는 StatementScope 에 실행된 SQL 을 기록한다. (batch 는 한 번으로 센다)
+ */
+@Component
+public class StatementScopeListener extends SimpleJdbcEventListener {
+
+    @Override
+    public void onAfterAnyExecute(StatementInformation statementInformation, long timeElapsedNanos, SQLException e) {
+        StatementScope.record(statementInformation.getSql(), statementInformation::getSqlWithValues);
+    }
+}
@@ -0,0 +1,129 @@
+package study.querydsl.paging;
+
+import com.querydsl.core.types.NullHandling;
+import com.querydsl.core.types.Ops;
+import com.querydsl.core.types.Order;
+import com.querydsl.core.types.OrderSpecifier;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.core.types.dsl.ComparableExpressionBase;
+import com.querydsl.core.types.dsl.Expressions;
+
+import java.util.Comparator;
+import java.util.function.Function;
+
+/**
+ * 키셋 정렬을 구성하는 정렬 키 하나
+ * 경로(path), 엔티티에서 값을 꺼내는 함수, 정렬 방향, null 정렬 위치를 가진다.
+ * nullsFirst()/nullsLast() 를 지정하지 않은 키는 null 값을 허용하지 않는다.
+ */
+public final class KeysetKey<T, V extends Comparable<?>> {
+
+    private final ComparableExpressionBase<V> path;
+    private final Function<T, V> extractor;
+    private final Order direction;
+    private final NullHandling nullHandling;
+
+    private KeysetKey(ComparableExpressionBase<V> path, Function<T, V> extractor,
+                      Order direction, NullHandling nullHandling) {
+        this.path = path;
+        this.extractor = extractor;
+        this.direction = direction;
+        this.nullHandling = nullHandling;
+    }
+
+    public static <T, V extends Comparable<?>> KeysetKey<T, V> asc(ComparableExpressionBase<V> path,
+                                                                   Function<T, V> extractor) {
+        return new KeysetKey<>(path, extractor, Order.ASC, NullHandling.Default);
+    }
+
+    public static <T, V extends Comparable<?>> KeysetKey<T, V> desc(ComparableExpressionBase<V> path,
+                                                                    Function<T, V> extractor) {
+        return new KeysetKey<>(path, extractor, Order.DESC, NullHandling.Default);
+    }
+
+    public KeysetKey<T, V> nullsFirst() {
+        return new KeysetKey<>(path, extractor, direction, NullHandling.NullsFirst);
+    }
+
+    public KeysetKey<T, V> nullsLast() {
+        return new KeysetKey<>(path, extractor, direction, NullHandling.NullsLast);
+    }
+
+    public ComparableExpressionBase<V> getPath() {
+        return path;
+    }
+
+    public Order getDirection() {
+        return direction;
+    }
+
+    public NullHandling getNullHandling() {
+        return nullHandling;
+    }
+
+    OrderSpecifier<V> toOrderSpecifier() {
+        return new OrderSpecifier<>(direction, path, nullHandling);
+    }
+
+    V valueOf(T row) {
+        V value = extractor.apply(row);
+        checkNullable(value);
+        return value;
+    }
+
+    Class<? extends V> valueType() {
+        return path.getType();
+    }
+
+    /**
+     * 메모리에서 같은 순서로 정렬하는 비교자 (여러 DB 의 결과를 합칠 때 사용)
+     * 문자열은 String.compareTo 로 비교하므로 DB 콜레이션이 이진 비교일 때 DB 정렬과 같다.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    Comparator<T> comparator() {
+        Comparator<V> values = (Comparator) Comparator.naturalOrder();
+        if (direction == Order.DESC) {
+            values = values.reversed();
+        }
+        values = nullHandling == NullHandling.NullsFirst
+                ? Comparator.nullsFirst(values)
+                : Comparator.nullsLast(values);
+        return Comparator.comparing(this::valueOf, values);
+    }
+
+    /**
+     * 정렬 순서상 value 와 같은 위치인 행
+     */
+    BooleanExpression equalTo(Object value) {
+        checkNullable(value);
+        if (value == null) {
+            return path.isNull();
+        }
+        return Expressions.booleanOperation(Ops.EQ, path, Expressions.constant(value));
+    }
+
+    /**
+     * 정렬 순서상 value 보다 뒤에 오는 행, 뒤에 올 수 있는 행이 없으면 null
+     */
+    BooleanExpression after(Object value) {
+        checkNullable(value);
+        if (value == null) {
+            return nullHandling == NullHandling.NullsFirst ? path.isNotNull() : null;
+        }
+        BooleanExpression after = Expressions.booleanOperation(
+                direction == Order.ASC ? Ops.GT : Ops.LT, path, Expressions.constant(value));
+        return nullHandling == NullHandling.NullsLast ? after.or(path.isNull()) : after;
+    }
+
+    private void checkNullable(Object value) {
+        if (value == null && nullHandling == NullHandling.Default) {
+            throw new IllegalArgumentException(
+                    "keyset key " + path + " has a null value; declare nullsFirst() or nullsLast()");
+        }
+    }
+
+    @Override
+    public String toString() {
+        return path + " " + direction + " " + nullHandling;
+    }
+}
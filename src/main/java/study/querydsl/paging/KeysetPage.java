@@ -0,0 +1,26 @@
+package study.querydsl.paging;
+
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.List;
+
+/**
+ * 키셋 페이지 조회 결과
+ * nextCursor 는 다음 페이지 조회에 그대로 넘기는 불투명(opaque) 토큰이고, 마지막 페이지면 null 이다.
+ */
+@Getter
+@ToString(of = {"nextCursor"})
+public class KeysetPage<T> {
+    private final List<T> content;
+    private final String nextCursor;
+
+    public KeysetPage(List<T> content, String nextCursor) {
+        this.content = content;
+        this.nextCursor = nextCursor;
+    }
+
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+}
@@ -0,0 +1,152 @@
+package study.querydsl.paging;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.querydsl.core.BooleanBuilder;
+import com.querydsl.core.types.OrderSpecifier;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.jpa.impl.JPAQuery;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * 키셋(seek) 페이징용 복합 정렬
+ * 예) age desc, username asc nulls last, id asc
+ * 마지막 키는 유일한 값(보통 id)이어야 정렬 순서가 전순서(total order)가 된다.
+ *
+ * offset 대신 "직전 페이지 마지막 행보다 뒤" 라는 조건을 where 절에 넣기 때문에
+ * N 번째 페이지도 첫 페이지와 같은 비용으로 조회된다.
+ */
+public final class KeysetSort<T> {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final List<KeysetKey<T, ?>> keys;
+    private final String signature;
+
+    private KeysetSort(List<KeysetKey<T, ?>> keys) {
+        this.keys = keys;
+        this.signature = Integer.toHexString(keys.toString().hashCode());
+    }
+
+    @SafeVarargs
+    public static <T> KeysetSort<T> of(KeysetKey<T, ?>... keys) {
+        if (keys.length == 0) {
+            throw new IllegalArgumentException("keyset sort needs at least one key");
+        }
+        return new KeysetSort<>(Collections.unmodifiableList(Arrays.asList(keys)));
+    }
+
+    public List<KeysetKey<T, ?>> getKeys() {
+        return keys;
+    }
+
+    public OrderSpecifier<?>[] orderSpecifiers() {
+        OrderSpecifier<?>[] orders = new OrderSpecifier<?>[keys.size()];
+        for (int i = 0; i < keys.size(); i++) {
+            orders[i] = keys.get(i).toOrderSpecifier();
+        }
+        return orders;
+    }
+
+    /**
+     * cursor 가 가리키는 행 뒤에 오는 행들에 대한 조건, cursor 가 없으면 null
+     * (k1 > v1) or (k1 = v1 and k2 > v2) or (k1 = v1 and k2 = v2 and k3 > v3) ...
+     */
+    public Predicate seek(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        List<Object> values = decode(cursor);
+
+        BooleanBuilder seek = new BooleanBuilder();
+        BooleanBuilder prefix = new BooleanBuilder();
+        for (int i = 0; i < keys.size(); i++) {
+            KeysetKey<T, ?> key = keys.get(i);
+            BooleanExpression after = key.after(values.get(i));
+            if (after != null) {
+                seek.or(new BooleanBuilder(prefix).and(after));
+            }
+            prefix.and(key.equalTo(values.get(i)));
+        }
+        return seek;
+    }
+
+    /**
+     * query 에 seek 조건과 정렬을 붙여 size 건을 조회한다.
+     * 다음 페이지 존재 여부는 size + 1 건을 조회해서 판단하므로 count 쿼리가 나가지 않는다.
+     */
+    public KeysetPage<T> fetchPage(JPAQuery<T> query, String cursor, int size) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("page size must be positive: " + size);
+        }
+        List<T> rows = query
+                .where(seek(cursor))
+                .orderBy(orderSpecifiers())
+                .limit(size + 1L)
+                .fetch();
+        return pageOf(rows, size);
+    }
+
+    /**
+     * 정렬된 size + 1 건 이하의 행으로 페이지를 만든다. (size 건보다 많으면 다음 페이지가 있다)
+     */
+    public KeysetPage<T> pageOf(List<T> rows, int size) {
+        if (rows.size() <= size) {
+            return new KeysetPage<>(rows, null);
+        }
+        List<T> content = new ArrayList<>(rows.subList(0, size));
+        return new KeysetPage<>(content, cursorOf(content.get(size - 1)));
+    }
+
+    /**
+     * orderSpecifiers() 와 같은 순서의 메모리 비교자
+     */
+    public Comparator<T> comparator() {
+        Comparator<T> comparator = keys.get(0).comparator();
+        for (int i = 1; i < keys.size(); i++) {
+            comparator = comparator.thenComparing(keys.get(i).comparator());
+        }
+        return comparator;
+    }
+
+    public String cursorOf(T row) {
+        List<Object> values = new ArrayList<>(keys.size() + 1);
+        values.add(signature);
+        for (KeysetKey<T, ?> key : keys) {
+            values.add(key.valueOf(row));
+        }
+        try {
+            byte[] json = MAPPER.writeValueAsBytes(values);
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(json);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("cannot encode keyset cursor", e);
+        }
+    }
+
+    private List<Object> decode(String cursor) {
+        List<?> raw;
+        try {
+            byte[] json = Base64.getUrlDecoder().decode(cursor);
+            raw = MAPPER.readValue(new String(json, StandardCharsets.UTF_8), List.class);
+        } catch (IllegalArgumentException | JsonProcessingException e) {
+            throw new IllegalArgumentException("malformed keyset cursor: " + cursor, e);
+        }
+        if (raw.size() != keys.size() + 1 || !signature.equals(raw.get(0))) {
+            throw new IllegalArgumentException("keyset cursor does not belong to this sort: " + cursor);
+        }
+
+        List<Object> values = new ArrayList<>(keys.size());
+        for (int i = 0; i < keys.size(); i++) {
+            values.add(MAPPER.convertValue(raw.get(i + 1), keys.get(i).valueType()));
+        }
+        return values;
+    }
+}
@@ -0,0 +1,84 @@
+package study.querydsl.paging;
+
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.stereotype.Component;
+import study.querydsl.query.ParallelQueryExecutor;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * fetchResults() 대신 사용하는 페이징 실행기 (QueryDSL 5.0 에서 fetchResults, fetchCount 는 deprecated)
+ *
+ * 1. 캐시에 total 이 있으면 count 쿼리를 생략한다.
+ * 2. 첫 페이지이거나 마지막 페이지라서 내용이 페이지 크기보다 작으면 count 쿼리를 생략한다.
+ * 3. count 가 필요하면 컨텐츠 쿼리와 동시에 ParallelQueryExecutor 로 (별도의 EntityManager 에서) 실행한다.
+ *    단, 쓰기 트랜잭션 안에서는 아직 커밋되지 않은 변경을 봐야 하므로 같은 EntityManager 로 순서대로 실행한다.
+ *
+ * 쓰기 트랜잭션 안에서는 캐시를 읽지도 채우지도 않는다.
+ * 커밋 전 변경이 들어간 total 을 캐시하면, 롤백되거나 다른 요청이 읽을 때 없는 행까지 센 값이 된다.
+ */
+@Component
+public class PageQueryExecutor {
+
+    private final JPAQueryFactory queryFactory;
+    private final TotalCountCache countCache;
+    private final ParallelQueryExecutor parallelQueryExecutor;
+
+    public PageQueryExecutor(JPAQueryFactory queryFactory,
+                             TotalCountCache countCache,
+                             ParallelQueryExecutor parallelQueryExecutor) {
+        this.queryFactory = queryFactory;
+        this.countCache = countCache;
+        this.parallelQueryExecutor = parallelQueryExecutor;
+    }
+
+    /**
+     * @param contentQuery 정렬까지 적용된 컨텐츠 쿼리, offset/limit 은 여기서 붙인다.
+     * @param countQuery   주어진 JPAQueryFactory 로 count 쿼리를 만드는 함수 (다른 스레드에서도 호출될 수 있다)
+     */
+    public <T> Page<T> fetchPage(JPAQuery<T> contentQuery,
+                                 Function<JPAQueryFactory, JPAQuery<Long>> countQuery,
+                                 Pageable pageable) {
+        if (pageable.isPaged()) {
+            contentQuery.offset(pageable.getOffset()).limit(pageable.getPageSize());
+        }
+
+        if (!ParallelQueryExecutor.canRunConcurrently()) {
+            return PageableExecutionUtils.getPage(contentQuery.fetch(), pageable,
+                    () -> count(countQuery.apply(queryFactory)));
+        }
+
+        String key = countCache.keyOf(countQuery.apply(queryFactory));
+        Long cached = countCache.get(key);
+        if (cached != null) {
+            return PageableExecutionUtils.getPage(contentQuery.fetch(), pageable, () -> cached);
+        }
+
+        if (pageable.isUnpaged() || pageable.getOffset() == 0) {
+            List<T> content = contentQuery.fetch();
+            return PageableExecutionUtils.getPage(content, pageable,
+                    () -> countCache.put(key, count(countQuery.apply(queryFactory))));
+        }
+
+        CompletableFuture<Long> total = parallelQueryExecutor.submit(
+                factory -> count(countQuery.apply(factory)));
+        try {
+            List<T> content = contentQuery.fetch();
+            return PageableExecutionUtils.getPage(content, pageable,
+                    () -> countCache.put(key, parallelQueryExecutor.await(total)));
+        } finally {
+            total.cancel(false);
+        }
+    }
+
+    private static long count(JPAQuery<Long> countQuery) {
+        Long total = countQuery.fetchOne();
+        return total == null ? 0L : total;
+    }
+}
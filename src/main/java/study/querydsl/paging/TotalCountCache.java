@@ -0,0 +1,79 @@
+package study.querydsl.paging;
+
+import com.querydsl.core.QueryMetadata;
+import com.querydsl.jpa.impl.JPAQuery;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * count 쿼리 결과를 짧은 시간(TTL) 동안 보관하는 캐시
+ * 키는 count 쿼리의 JPQL 모양 + 조인/where/having 조건(바인딩 값 포함) 이다.
+ * 같은 목록 화면을 반복 조회할 때 매번 전체 count 를 치지 않기 위해 사용한다.
+ */
+@Component
+public class TotalCountCache {
+
+    private final Map<String, CachedTotal> totals = new ConcurrentHashMap<>();
+    private final long ttlNanos;
+    private final int maxEntries;
+
+    public TotalCountCache(@Value("${app.paging.count-cache-ttl:5s}") Duration ttl,
+                           @Value("${app.paging.count-cache-max-entries:1000}") int maxEntries) {
+        this.ttlNanos = ttl.toNanos();
+        this.maxEntries = maxEntries;
+    }
+
+    public String keyOf(JPAQuery<?> countQuery) {
+        QueryMetadata metadata = countQuery.getMetadata();
+        return countQuery + "|" + metadata.getJoins() + "|" + metadata.getWhere() + "|" + metadata.getHaving();
+    }
+
+    public Long get(String key) {
+        CachedTotal cached = totals.get(key);
+        if (cached == null) {
+            return null;
+        }
+        if (cached.isExpired(System.nanoTime())) {
+            totals.remove(key, cached);
+            return null;
+        }
+        return cached.total;
+    }
+
+    public long put(String key, long total) {
+        if (totals.size() >= maxEntries) {
+            evictExpired();
+        }
+        if (totals.size() < maxEntries) {
+            totals.put(key, new CachedTotal(total, System.nanoTime() + ttlNanos));
+        }
+        return total;
+    }
+
+    public void clear() {
+        totals.clear();
+    }
+
+    private void evictExpired() {
+        long now = System.nanoTime();
+        totals.values().removeIf(cached -> cached.isExpired(now));
+    }
+
+    private static final class CachedTotal {
+        private final long total;
+        private final long expiresAt;
+
+        private CachedTotal(long total, long expiresAt) {
+            this.total = total;
+            this.expiresAt = expiresAt;
+        }
+
+        private boolean isExpired(long now) {
+            return now - expiresAt >= 0;
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package study.querydsl.query;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.datasource.ReadYourWrites;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * 서로 독립적인 읽기 쿼리를 동시에 실행한다. (컨텐츠 + count, 여러 집계 등)
+ *
+ * <pre>
+ * MemberSummary summary = parallelQueryExecutor.combine(
+ *         factory -&gt; factory.select(member.count()).from(member).fetchOne(),
+ *         factory -&gt; factory.select(member.age.avg()).from(member).fetchOne(),
+ *         MemberSummary::new);
+ * </pre>
+ *
+ * - 쿼리마다 작업 스레드에서 새 읽기 전용 트랜잭션(새 EntityManager)을 열고, 그 트랜잭션에 묶인 JPAQueryFactory 를 넘긴다.
+ *   쿼리 함수는 넘겨받은 factory 만 사용해야 하고, 결과로 엔티티가 아닌 값(DTO, 숫자)을 돌려주는 것이 좋다.
+ *   (트랜잭션이 끝나면 EntityManager 가 닫히므로 엔티티는 준영속 상태가 된다)
+ * - 작업 스레드의 트랜잭션은 호출한 스레드가 잡고 있는 커넥션과 별개로 커넥션을 하나 더 쓴다.
+ *   커넥션을 잡은 채 작업을 기다리는 호출자와 작업 스레드가 풀을 나눠 가지면 서로 기다리다 타임아웃이 나므로,
+ *   작업 스레드는 풀의 절반 이하, 동시에 맡길 수 있는 작업 수는 나머지 절반 이하로 제한한다.
+ *   (호출자 + 작업 스레드가 쓰는 커넥션이 풀 크기를 넘지 않는다)
+ *   한도를 넘거나 대기 큐가 차면 새 트랜잭션을 열지 않고 호출한 스레드에서 그 스레드의 트랜잭션(커넥션)으로 실행한다.
+ * - 같은 요청에서 먼저 쓰기가 있었으면(ReadYourWrites) 작업 스레드에도 전달해서 primary 에서 읽게 한다.
+ * - 호출한 스레드가 쓰기 트랜잭션 안이면, 커밋 전 변경을 봐야 하므로 그 트랜잭션에서 순서대로 실행한다.
+ * - 작업 스레드의 트랜잭션에는 남은 대기 시간을 트랜잭션 timeout 으로 건다.
+ *   스프링이 이를 쿼리 timeout(javax.persistence.query.timeout)으로 넘기므로, 기다리던 쪽이 포기한 쿼리는 늦어도 그 시각에 DB 에서 끊긴다.
+ *   future 를 취소해도 이미 실행 중인 쿼리는 멈추지 않는다. (결과만 버린다)
+ */
+@Component
+public class ParallelQueryExecutor implements DisposableBean {
+
+    private final JPAQueryFactory queryFactory;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ThreadPoolExecutor executor;
+    private final Semaphore inFlight;
+    private final long timeoutNanos;
+
+    public ParallelQueryExecutor(JPAQueryFactory queryFactory,
+                                 PlatformTransactionManager transactionManager,
+                                 @Value("${app.parallel-query.connection-pool-size:${spring.datasource.hikari.maximum-pool-size:10}}") int connectionPoolSize,
+                                 @Value("${app.parallel-query.threads:0}") int threads,
+                                 @Value("${app.parallel-query.queue-size:100}") int queueSize,
+                                 @Value("${app.parallel-query.timeout:30s}") Duration timeout) {
+        this.queryFactory = queryFactory;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.timeoutNanos = timeout.toNanos();
+
+        int maxThreads = Math.max(1, connectionPoolSize / 2);
+        int workers = threads > 0 ? Math.min(threads, maxThreads) : maxThreads;
+        this.inFlight = new Semaphore(Math.max(0, connectionPoolSize - workers));
+
+        AtomicInteger sequence = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(workers, workers, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueSize),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "parallel-query-" + sequence.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * 쿼리 하나를 비동기로 시작한다.
+     * 쓰기 트랜잭션 안이거나 작업 스레드에 맡길 수 없으면 바로 실행하고 완료된 future 를 돌려준다.
+     */
+    public <T> CompletableFuture<T> submit(Function<JPAQueryFactory, T> query) {
+        return submit(query, System.nanoTime() + timeoutNanos);
+    }
+
+    private <T> CompletableFuture<T> submit(Function<JPAQueryFactory, T> query, long deadlineNanos) {
+        if (!canRunConcurrently() || !inFlight.tryAcquire()) {
+            return CompletableFuture.completedFuture(query.apply(queryFactory));
+        }
+
+        Supplier<T> task = ReadYourWrites.propagate(
+                () -> boundedBy(deadlineNanos).execute(status -> query.apply(queryFactory)));
+        CompletableFuture<T> future = new CompletableFuture<>();
+        try {
+            executor.execute(() -> {
+                try {
+                    if (future.isDone()) {
+                        return;
+                    }
+                    future.complete(task.get());
+                } catch (Throwable e) {
+                    future.completeExceptionally(e);
+                } finally {
+                    inFlight.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            inFlight.release();
+            return CompletableFuture.completedFuture(query.apply(queryFactory));
+        }
+        return future;
+    }
+
+    /**
+     * 쿼리들을 동시에 실행하고 결과를 같은 순서로 돌려준다.
+     * 하나라도 실패하면 그 예외를 던진다. 아직 시작하지 않은 나머지는 실행하지 않고,
+     * 실행 중인 나머지는 결과를 버린다. (쿼리 자체는 timeout 시각까지 DB 에서 돌 수 있다)
+     */
+    public <T> List<T> fetchAll(List<Function<JPAQueryFactory, ? extends T>> queries) {
+        long deadline = System.nanoTime() + timeoutNanos;
+        List<CompletableFuture<? extends T>> futures = new ArrayList<>(queries.size());
+        for (Function<JPAQueryFactory, ? extends T> query : queries) {
+            futures.add(submit(query, deadline));
+        }
+
+        List<T> results = new ArrayList<>(futures.size());
+        try {
+            for (CompletableFuture<? extends T> future : futures) {
+                results.add(await(future, deadline));
+            }
+            return results;
+        } finally {
+            futures.forEach(future -> future.cancel(false));
+        }
+    }
+
+    public <A, B, R> R combine(Function<JPAQueryFactory, A> first,
+                               Function<JPAQueryFactory, B> second,
+                               BiFunction<A, B, R> combiner) {
+        long deadline = System.nanoTime() + timeoutNanos;
+        CompletableFuture<A> a = submit(first, deadline);
+        CompletableFuture<B> b = submit(second, deadline);
+        try {
+            return combiner.apply(await(a, deadline), await(b, deadline));
+        } finally {
+            a.cancel(false);
+            b.cancel(false);
+        }
+    }
+
+    /**
+     * submit 한 결과를 설정된 timeout 까지 기다린다. 작업에서 난 예외는 감싸지 않고 그대로 던진다.
+     */
+    public <T> T await(CompletableFuture<T> future) {
+        return await(future, System.nanoTime() + timeoutNanos);
+    }
+
+    private static <T> T await(CompletableFuture<T> future, long deadlineNanos) {
+        try {
+            return future.get(Math.max(deadlineNanos - System.nanoTime(), 0), TimeUnit.NANOSECONDS);
+        } catch (ExecutionException | CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        } catch (TimeoutException e) {
+            throw new QueryTimeoutException("parallel query did not finish in time", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while waiting for parallel query", e);
+        }
+    }
+
+    /**
+     * 남은 시간을 timeout 으로 건 읽기 전용 트랜잭션, 트랜잭션 timeout 은 초 단위이므로 올림한다.
+     */
+    private TransactionTemplate boundedBy(long deadlineNanos) {
+        long remaining = deadlineNanos - System.nanoTime();
+        if (remaining <= 0) {
+            throw new QueryTimeoutException("parallel query did not start in time");
+        }
+        TransactionTemplate bounded = new TransactionTemplate(readOnlyTransaction.getTransactionManager(), readOnlyTransaction);
+        bounded.setTimeout((int) Math.min(Integer.MAX_VALUE, (remaining + 999_999_999) / 1_000_000_000));
+        return bounded;
+    }
+
+    /**
+     * 쓰기 트랜잭션 밖(또는 읽기 전용 트랜잭션 안)이면 다른 트랜잭션에서 실행해도 같은 결과를 본다.
+     */
+    public static boolean canRunConcurrently() {
+        return !TransactionSynchronizationManager.isActualTransactionActive()
+                || TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+}
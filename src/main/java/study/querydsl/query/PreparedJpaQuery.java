@@ -0,0 +1,143 @@
+package study.querydsl.query;
+
+import com.querydsl.core.NonUniqueResultException;
+import com.querydsl.core.QueryMetadata;
+import com.querydsl.core.QueryModifiers;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.FactoryExpression;
+import com.querydsl.core.types.FactoryExpressionUtils;
+import com.querydsl.core.types.ParamExpression;
+import com.querydsl.jpa.HQLTemplates;
+import com.querydsl.jpa.JPQLSerializer;
+import com.querydsl.jpa.JPQLTemplates;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAUtil;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 한 번만 JPQL 로 직렬화해두고, Param 값만 바꿔서 반복 실행하는 쿼리
+ *
+ * <pre>
+ * Param&lt;String&gt; username = new Param&lt;&gt;(String.class, "username");
+ * PreparedJpaQuery&lt;Member&gt; query = PreparedJpaQuery.prepare(new JPAQuery&lt;&gt;()
+ *         .select(member)
+ *         .from(member)
+ *         .where(member.username.eq(username)));
+ *
+ * Member member1 = query.with(em).set(username, "member1").fetchOne();
+ * </pre>
+ *
+ * 실행할 때마다 표현식 트리를 만들고 JPQLSerializer 로 직렬화하는 과정이 없어진다.
+ * JPQL 문자열이 항상 같으므로 Hibernate 쿼리 플랜 캐시도 그대로 적중한다.
+ * 정의 시점의 projection, where, 정렬, limit/offset 만 사용하고 힌트, 락, flush 모드는 옮기지 않는다.
+ */
+public final class PreparedJpaQuery<T> {
+
+    private final String jpql;
+    private final List<Object> constants;
+    private final Map<ParamExpression<?>, Object> defaultParams;
+    private final FactoryExpression<?> factoryExpression;
+    private final QueryModifiers modifiers;
+
+    private PreparedJpaQuery(String jpql, List<Object> constants, Map<ParamExpression<?>, Object> defaultParams,
+                             FactoryExpression<?> factoryExpression, QueryModifiers modifiers) {
+        this.jpql = jpql;
+        this.constants = constants;
+        this.defaultParams = defaultParams;
+        this.factoryExpression = factoryExpression;
+        this.modifiers = modifiers;
+    }
+
+    public static <T> PreparedJpaQuery<T> prepare(JPAQuery<T> query) {
+        return prepare(query, HQLTemplates.DEFAULT);
+    }
+
+    public static <T> PreparedJpaQuery<T> prepare(JPAQuery<T> query, JPQLTemplates templates) {
+        QueryMetadata metadata = query.getMetadata();
+        JPQLSerializer serializer = new JPQLSerializer(templates);
+        serializer.serialize(metadata, false, null);
+
+        Expression<?> projection = metadata.getProjection();
+        FactoryExpression<?> factoryExpression = projection instanceof FactoryExpression
+                ? FactoryExpressionUtils.wrap((FactoryExpression<?>) projection)
+                : null;
+
+        return new PreparedJpaQuery<>(
+                serializer.toString(),
+                Collections.unmodifiableList(new ArrayList<>(serializer.getConstants())),
+                Collections.unmodifiableMap(new HashMap<>(metadata.getParams())),
+                factoryExpression,
+                metadata.getModifiers());
+    }
+
+    public String getJpql() {
+        return jpql;
+    }
+
+    public Execution with(EntityManager em) {
+        return new Execution(em);
+    }
+
+    /**
+     * 실행 한 번 분의 파라미터 바인딩, 스레드 간에 공유하지 않는다.
+     */
+    public final class Execution {
+        private final EntityManager em;
+        private final Map<ParamExpression<?>, Object> params = new HashMap<>(defaultParams);
+
+        private Execution(EntityManager em) {
+            this.em = em;
+        }
+
+        public <P> Execution set(ParamExpression<P> param, P value) {
+            params.put(param, value);
+            return this;
+        }
+
+        public Query createQuery() {
+            Query query = em.createQuery(jpql);
+            JPAUtil.setConstants(query, constants, params);
+            if (modifiers != null) {
+                if (modifiers.getLimit() != null) {
+                    query.setMaxResults(modifiers.getLimit().intValue());
+                }
+                if (modifiers.getOffset() != null) {
+                    query.setFirstResult(modifiers.getOffset().intValue());
+                }
+            }
+            return query;
+        }
+
+        @SuppressWarnings("unchecked")
+        public List<T> fetch() {
+            List<?> rows = createQuery().getResultList();
+            if (factoryExpression == null) {
+                return (List<T>) rows;
+            }
+            List<T> results = new ArrayList<>(rows.size());
+            for (Object row : rows) {
+                Object[] args = row instanceof Object[] ? (Object[]) row : new Object[]{row};
+                results.add((T) factoryExpression.newInstance(args));
+            }
+            return results;
+        }
+
+        public T fetchOne() {
+            List<T> results = fetch();
+            if (results.isEmpty()) {
+                return null;
+            }
+            if (results.size() > 1) {
+                throw new NonUniqueResultException();
+            }
+            return results.get(0);
+        }
+    }
+}
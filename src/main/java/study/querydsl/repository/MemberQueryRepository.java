@@ -0,0 +1,240 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.types.Order;
+import com.querydsl.core.types.OrderSpecifier;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.core.types.dsl.Param;
+import com.querydsl.core.types.dsl.PathBuilder;
+import com.querydsl.jpa.JPAExpressions;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.hibernate.annotations.QueryHints;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StringUtils;
+import study.querydsl.cache.QueryResultCache;
+import study.querydsl.dto.MemberDto;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.QMemberDto;
+import study.querydsl.dto.QMemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.QMember;
+import study.querydsl.paging.KeysetKey;
+import study.querydsl.paging.KeysetPage;
+import study.querydsl.paging.KeysetSort;
+import study.querydsl.paging.PageQueryExecutor;
+import study.querydsl.query.PreparedJpaQuery;
+
+import javax.persistence.EntityManager;
+import javax.persistence.FlushModeType;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+@Repository
+@RequiredArgsConstructor
+public class MemberQueryRepository {
+
+    /**
+     * 회원 나이 내림차순, 회원 이름 올림차순(null 은 마지막), 회원 id 올림차순
+     */
+    public static final KeysetSort<Member> AGE_DESC_USERNAME_ASC = KeysetSort.of(
+            KeysetKey.desc(member.age, Member::getAge),
+            KeysetKey.asc(member.username, Member::getUsername).nullsLast(),
+            KeysetKey.asc(member.id, Member::getId)
+    );
+
+    private static final Param<String> USERNAME = new Param<>(String.class, "username");
+
+    /**
+     * 회원 이름으로 조회, JPQL 직렬화는 클래스 로딩 시 한 번만 한다.
+     */
+    private static final PreparedJpaQuery<Member> FIND_BY_USERNAME = PreparedJpaQuery.prepare(
+            new JPAQuery<>()
+                    .select(member)
+                    .from(member)
+                    .where(member.username.eq(USERNAME)));
+
+    private final EntityManager em;
+    private final JPAQueryFactory queryFactory;
+    private final PageQueryExecutor pageQueryExecutor;
+    private final QueryResultCache queryResultCache;
+
+    public List<Member> findByUsername(String username) {
+        return FIND_BY_USERNAME.with(em)
+                .set(USERNAME, username)
+                .fetch();
+    }
+
+    public KeysetPage<Member> findMembers(Predicate condition, String cursor, int size) {
+        return findMembers(condition, AGE_DESC_USERNAME_ASC, cursor, size);
+    }
+
+    public KeysetPage<Member> findMembers(Predicate condition, KeysetSort<Member> sort, String cursor, int size) {
+        return sort.fetchPage(
+                queryFactory
+                        .selectFrom(member)
+                        .where(condition),
+                cursor, size);
+    }
+
+    /**
+     * offset 페이징, total 은 PageQueryExecutor 가 필요할 때만 count 쿼리로 구한다.
+     * 정렬 조건이 없으면 id 순으로 정렬한다.
+     */
+    public Page<Member> findPage(Predicate condition, Pageable pageable) {
+        return pageQueryExecutor.fetchPage(
+                queryFactory
+                        .selectFrom(member)
+                        .where(condition)
+                        .orderBy(orderOf(pageable.getSort())),
+                factory -> factory
+                        .select(member.count())
+                        .from(member)
+                        .where(condition),
+                pageable);
+    }
+
+    /**
+     * id 목록으로 한 번의 in 쿼리로 조회하고, 결과를 ids 순서대로 돌려준다. (없는 id 는 빠진다)
+     */
+    @Transactional(readOnly = true)
+    public List<MemberDto> findDtosByIds(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<Long, MemberDto> byId = queryFactory
+                .select(new QMemberDto(member.id, member.username, member.age))
+                .from(member)
+                .where(member.id.in(ids))
+                .fetch().stream()
+                .collect(Collectors.toMap(MemberDto::getId, Function.identity()));
+        return ids.stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * 회원 + 팀을 DTO 로 바로 조회한다.
+     * 엔티티를 만들지 않으므로 영속성 컨텍스트 스냅샷, flush 시점 변경 감지 비용이 없다.
+     */
+    @Transactional(readOnly = true)
+    public List<MemberTeamDto> search(MemberSearchCondition condition) {
+        return searchQuery(condition).fetch();
+    }
+
+    /**
+     * search 와 같은 조회를 결과 캐시를 거쳐서 한다. 회원/팀이 변경되면 캐시에서 빠진다.
+     */
+    @Transactional(readOnly = true)
+    public List<MemberTeamDto> searchCached(MemberSearchCondition condition) {
+        return queryResultCache.fetch(searchQuery(condition));
+    }
+
+    /**
+     * 나이가 평균보다 많은 회원 (결과 캐시 사용)
+     */
+    @Transactional(readOnly = true)
+    public List<MemberDto> findOlderThanAverage() {
+        QMember memberSub = new QMember("memberSub");
+        return queryResultCache.fetch(queryFactory
+                .select(new QMemberDto(member.id, member.username, member.age))
+                .from(member)
+                .where(member.age.gt(
+                        JPAExpressions
+                                .select(memberSub.age.avg())
+                                .from(memberSub)))
+                .orderBy(member.age.desc(), member.id.asc()));
+    }
+
+    /**
+     * 플러시 모드는 기본(AUTO)을 그대로 쓴다. 쓰기 트랜잭션에서 호출해도 아직 flush 하지 않은 변경이 조회에 반영된다.
+     * 팀 이름 조건이 있으면 팀 없는 회원은 어차피 걸러지므로 inner join 으로 바꾼다.
+     * (left join 이면 DB 가 항상 회원 테이블부터 읽어서 팀 이름 인덱스를 쓰지 못한다)
+     */
+    private JPAQuery<MemberTeamDto> searchQuery(MemberSearchCondition condition) {
+        JPAQuery<MemberTeamDto> query = queryFactory
+                .select(new QMemberTeamDto(
+                        member.id,
+                        member.username,
+                        member.age,
+                        team.id,
+                        team.name))
+                .from(member);
+        if (StringUtils.hasText(condition.getTeamName())) {
+            query.join(member.team, team);
+        } else {
+            query.leftJoin(member.team, team);
+        }
+        return query.where(searchCondition(condition));
+    }
+
+    /**
+     * 화면 조회 전용 엔티티 조회
+     * read-only 힌트로 스냅샷을 남기지 않아 변경 감지 대상에서 빠지고,
+     * FlushModeType.COMMIT 으로 조회 직전 auto flush 를 하지 않는다.
+     */
+    @Transactional(readOnly = true)
+    public List<Member> searchReadOnly(MemberSearchCondition condition) {
+        return queryFactory
+                .selectFrom(member)
+                .leftJoin(member.team, team).fetchJoin()
+                .where(searchCondition(condition))
+                .setHint(QueryHints.READ_ONLY, true)
+                .setFlushMode(FlushModeType.COMMIT)
+                .fetch();
+    }
+
+    /**
+     * 검색 조건, teamName 조건은 team 으로 조인(별칭 team)된 쿼리에서만 쓸 수 있다.
+     */
+    public static Predicate[] searchCondition(MemberSearchCondition condition) {
+        return new Predicate[]{
+                usernameEq(condition.getUsername()),
+                teamNameEq(condition.getTeamName()),
+                ageGoe(condition.getAgeGoe()),
+                ageLoe(condition.getAgeLoe())
+        };
+    }
+
+    private static BooleanExpression usernameEq(String username) {
+        return StringUtils.hasText(username) ? member.username.eq(username) : null;
+    }
+
+    private static BooleanExpression teamNameEq(String teamName) {
+        return StringUtils.hasText(teamName) ? team.name.eq(teamName) : null;
+    }
+
+    private static BooleanExpression ageGoe(Integer ageGoe) {
+        return ageGoe != null ? member.age.goe(ageGoe) : null;
+    }
+
+    private static BooleanExpression ageLoe(Integer ageLoe) {
+        return ageLoe != null ? member.age.loe(ageLoe) : null;
+    }
+
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private static OrderSpecifier<?>[] orderOf(Sort sort) {
+        if (sort.isUnsorted()) {
+            return new OrderSpecifier<?>[]{member.id.asc()};
+        }
+        PathBuilder<Member> path = new PathBuilder<>(member.getType(), member.getMetadata());
+        return sort.stream()
+                .map(order -> new OrderSpecifier(order.isAscending() ? Order.ASC : Order.DESC,
+                        path.get(order.getProperty())))
+                .toArray(OrderSpecifier<?>[]::new);
+    }
+}
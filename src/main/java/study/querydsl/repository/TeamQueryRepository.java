@@ -0,0 +1,96 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberDto;
+import study.querydsl.dto.QMemberDto;
+import study.querydsl.dto.TeamMembersDto;
+import study.querydsl.transform.SortedGroupBy;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+@Repository
+@RequiredArgsConstructor
+public class TeamQueryRepository {
+
+    private final JPAQueryFactory queryFactory;
+
+    /**
+     * 팀 + 회원 목록 페이지 조회, 페이지 크기와 상관없이 쿼리 2번
+     * 1. 팀만 페이징 (컬렉션 fetch join 을 하면 팀 row 가 회원 수만큼 늘어나 페이징이 깨진다)
+     * 2. 페이지에 포함된 팀들의 회원을 in 절로 한 번에 조회해서 팀 id 별로 묶는다.
+     */
+    @Transactional(readOnly = true)
+    public Slice<TeamMembersDto> findTeamsWithMembers(Pageable pageable) {
+        List<Tuple> teams = queryFactory
+                .select(team.id, team.name)
+                .from(team)
+                .orderBy(team.id.asc())
+                .offset(pageable.getOffset())
+                .limit(pageable.getPageSize() + 1L)
+                .fetch();
+
+        boolean hasNext = teams.size() > pageable.getPageSize();
+        if (hasNext) {
+            teams = teams.subList(0, pageable.getPageSize());
+        }
+
+        List<Long> teamIds = teams.stream()
+                .map(tuple -> tuple.get(team.id))
+                .collect(Collectors.toList());
+        Map<Long, List<MemberDto>> membersByTeam = findMembersByTeamIds(teamIds);
+
+        List<TeamMembersDto> content = new ArrayList<>(teams.size());
+        for (Tuple tuple : teams) {
+            Long teamId = tuple.get(team.id);
+            content.add(new TeamMembersDto(teamId, tuple.get(team.name),
+                    membersByTeam.getOrDefault(teamId, Collections.emptyList())));
+        }
+        return new SliceImpl<>(content, pageable, hasNext);
+    }
+
+    private Map<Long, List<MemberDto>> findMembersByTeamIds(List<Long> teamIds) {
+        if (teamIds.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        return queryFactory
+                .from(member)
+                .where(member.team.id.in(teamIds))
+                .orderBy(member.team.id.asc(), member.id.asc())
+                .transform(SortedGroupBy.multimap(member.team.id, new QMemberDto(member.id, member.username, member.age))
+                        .presized(teamIds.size(), 8));
+    }
+
+    /**
+     * 팀 + 회원 목록을 left join 한 번으로 조회, 회원이 없는 팀도 빈 목록으로 포함한다.
+     * 팀 id, 회원 id 순으로 정렬된 행을 한 번 훑으면서 DTO 로 묶는다. (엔티티, 영속성 컨텍스트를 거치지 않는다)
+     */
+    @Transactional(readOnly = true)
+    public List<TeamMembersDto> findTeamsWithMembersIn(List<Long> teamIds) {
+        if (teamIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return queryFactory
+                .from(team)
+                .leftJoin(team.members, member)
+                .where(team.id.in(teamIds))
+                .orderBy(team.id.asc(), member.id.asc())
+                .transform(SortedGroupBy.nested(team.id, team.name,
+                                member.id, new QMemberDto(member.id, member.username, member.age),
+                                TeamMembersDto::new)
+                        .presized(teamIds.size(), 8));
+    }
+}
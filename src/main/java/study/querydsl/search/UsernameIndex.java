@@ -0,0 +1,275 @@
+package study.querydsl.search;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import study.querydsl.entity.Member;
+import study.querydsl.event.EntityCommitEvent;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.Consumer;
+
+import static study.querydsl.entity.QMember.member;
+
+/**
+ * 회원 이름 검색용 메모리 인덱스 (like 'x%', like '%x%' 대신 사용)
+ *
+ * - 접두어 : 이름 -> 회원 id 를 정렬된 맵(skip list)으로 두고 접두어 구간만 읽는다. O(log n + 결과 수)
+ * - 부분 문자열 : 이름의 3글자 조각(trigram) -> 이름 목록. 검색어의 trigram 중 이름이 가장 적은 목록만 훑으면서
+ *   실제로 검색어를 포함하는지 확인한다. 3글자 미만 검색어는 전체 이름을 훑는다.
+ * - 대소문자를 구분한다. (DB 의 like 와 같다)
+ *
+ * 커밋된 회원 추가/삭제/이름 변경 이벤트로 갱신하고, 시작할 때 DB 에서 다시 만든다.
+ * 이벤트가 없는 JPQL 벌크 삭제는 MemberBulkWriter 가 구간을 커밋할 때마다 removeAll 로 알려준다.
+ * 변경은 한 번에 하나씩 (synchronized) 반영하고, 조회는 락 없이 동시에 할 수 있다.
+ */
+@Slf4j
+@Component
+public class UsernameIndex {
+
+    private static final int GRAM = 3;
+
+    private final JPAQueryFactory queryFactory;
+    private final int rebuildBatchSize;
+
+    private final Object rebuildLock = new Object();
+    private volatile Index index = new Index();
+    private List<Consumer<Index>> pendingDuringRebuild;
+
+    public UsernameIndex(JPAQueryFactory queryFactory,
+                         @Value("${app.username-index.rebuild-batch-size:10000}") int rebuildBatchSize) {
+        this.queryFactory = queryFactory;
+        this.rebuildBatchSize = rebuildBatchSize;
+    }
+
+    /**
+     * 이름이 prefix 로 시작하는 회원 id, 이름 순 -> id 순
+     */
+    public List<Long> findIdsByPrefix(String prefix, int limit) {
+        List<Long> ids = new ArrayList<>(Math.min(limit, 64));
+        NavigableMap<String, Set<Long>> range = index.idsByUsername.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+        for (Set<Long> members : range.values()) {
+            if (addAll(ids, members, limit)) {
+                break;
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * 이름에 text 가 포함된 회원 id, 이름 순 -> id 순 (후보를 limit 개 찾으면 멈추므로 같은 limit 이면 결과는 항상 같다)
+     */
+    public List<Long> findIdsContaining(String text, int limit) {
+        Index current = index;
+        Iterable<String> candidates = text.length() < GRAM
+                ? current.idsByUsername.keySet()
+                : smallestPosting(current, text);
+
+        List<Long> ids = new ArrayList<>(Math.min(limit, 64));
+        for (String username : candidates) {
+            if (username.contains(text)) {
+                Set<Long> members = current.idsByUsername.get(username);
+                if (members != null && addAll(ids, members, limit)) {
+                    break;
+                }
+            }
+        }
+        return ids;
+    }
+
+    public int size() {
+        return index.usernameById.size();
+    }
+
+    @EventListener
+    public void onCommit(EntityCommitEvent event) {
+        if (!event.isFor(Member.class)) {
+            return;
+        }
+        Long id = (Long) event.getId();
+        switch (event.getKind()) {
+            case INSERT:
+            case UPDATE:
+                String username = (String) event.newValue("username");
+                apply(target -> target.put(id, username));
+                break;
+            case DELETE:
+                apply(target -> target.remove(id));
+                break;
+        }
+    }
+
+    /**
+     * 커밋 이벤트 없이 삭제된 회원 (JPQL 벌크 삭제)
+     */
+    public void removeAll(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        List<Long> removed = new ArrayList<>(ids);
+        apply(target -> removed.forEach(target::remove));
+    }
+
+    /**
+     * DB 에서 id 순으로 rebuildBatchSize 개씩 읽어서 새 인덱스를 만들고 바꿔 끼운다.
+     * 만드는 동안 들어온 변경은 기존 인덱스에 반영하고, 교체 직전에 새 인덱스에도 다시 적용한다.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        synchronized (rebuildLock) {
+            long start = System.nanoTime();
+            synchronized (this) {
+                pendingDuringRebuild = new ArrayList<>();
+            }
+
+            Index rebuilt = new Index();
+            try {
+                load(rebuilt);
+            } catch (RuntimeException e) {
+                synchronized (this) {
+                    pendingDuringRebuild = null;
+                }
+                throw e;
+            }
+
+            synchronized (this) {
+                pendingDuringRebuild.forEach(change -> change.accept(rebuilt));
+                pendingDuringRebuild = null;
+                index = rebuilt;
+            }
+            log.info("username index rebuilt with {} members in {} ms", rebuilt.usernameById.size(),
+                    (System.nanoTime() - start) / 1_000_000);
+        }
+    }
+
+    private void load(Index target) {
+        Long lastId = null;
+        while (true) {
+            List<Tuple> rows = queryFactory
+                    .select(member.id, member.username)
+                    .from(member)
+                    .where(lastId == null ? null : member.id.gt(lastId))
+                    .orderBy(member.id.asc())
+                    .limit(rebuildBatchSize)
+                    .fetch();
+            for (Tuple row : rows) {
+                target.put(row.get(member.id), row.get(member.username));
+            }
+            if (rows.size() < rebuildBatchSize) {
+                return;
+            }
+            lastId = rows.get(rows.size() - 1).get(member.id);
+        }
+    }
+
+    private synchronized void apply(Consumer<Index> change) {
+        change.accept(index);
+        if (pendingDuringRebuild != null) {
+            pendingDuringRebuild.add(change);
+        }
+    }
+
+    private static Iterable<String> smallestPosting(Index current, String text) {
+        Set<String> smallest = null;
+        for (int i = 0; i + GRAM <= text.length(); i++) {
+            Set<String> posting = current.usernamesByGram.get(text.substring(i, i + GRAM));
+            if (posting == null) {
+                return Collections.emptyList();
+            }
+            if (smallest == null || posting.size() < smallest.size()) {
+                smallest = posting;
+            }
+        }
+        return smallest;
+    }
+
+    private static boolean addAll(List<Long> ids, Set<Long> members, int limit) {
+        for (Long id : members) {
+            if (ids.size() >= limit) {
+                return true;
+            }
+            ids.add(id);
+        }
+        return ids.size() >= limit;
+    }
+
+    private static final class Index {
+        private final Map<Long, String> usernameById = new ConcurrentHashMap<>();
+        private final ConcurrentSkipListMap<String, Set<Long>> idsByUsername = new ConcurrentSkipListMap<>();
+        private final Map<String, Set<String>> usernamesByGram = new ConcurrentHashMap<>();
+
+        private void put(Long id, String username) {
+            String previous = username == null ? usernameById.remove(id) : usernameById.put(id, username);
+            if (previous != null) {
+                if (previous.equals(username)) {
+                    return;
+                }
+                unlink(id, previous);
+            }
+            if (username != null) {
+                link(id, username);
+            }
+        }
+
+        private void remove(Long id) {
+            String previous = usernameById.remove(id);
+            if (previous != null) {
+                unlink(id, previous);
+            }
+        }
+
+        private void link(Long id, String username) {
+            Set<Long> ids = idsByUsername.get(username);
+            if (ids == null) {
+                ids = new ConcurrentSkipListSet<>();
+                idsByUsername.put(username, ids);
+                for (String gram : gramsOf(username)) {
+                    usernamesByGram.computeIfAbsent(gram, g -> new ConcurrentSkipListSet<>()).add(username);
+                }
+            }
+            ids.add(id);
+        }
+
+        private void unlink(Long id, String username) {
+            Set<Long> ids = idsByUsername.get(username);
+            if (ids == null) {
+                return;
+            }
+            ids.remove(id);
+            if (ids.isEmpty()) {
+                idsByUsername.remove(username);
+                for (String gram : gramsOf(username)) {
+                    Set<String> posting = usernamesByGram.get(gram);
+                    if (posting != null) {
+                        posting.remove(username);
+                        if (posting.isEmpty()) {
+                            usernamesByGram.remove(gram);
+                        }
+                    }
+                }
+            }
+        }
+
+        private static Set<String> gramsOf(String username) {
+            Set<String> grams = new TreeSet<>();
+            for (int i = 0; i + GRAM <= username.length(); i++) {
+                grams.add(username.substring(i, i + GRAM));
+            }
+            return grams;
+        }
+    }
+}
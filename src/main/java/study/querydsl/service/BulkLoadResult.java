@@ -0,0 +1,25 @@
+package study.querydsl.service;
+
+import lombok.Getter;
+import lombok.ToString;
+
+import java.time.Duration;
+
+@Getter
+@ToString
+public class BulkLoadResult {
+    private final long members;
+    private final long teamsCreated;
+    private final Duration elapsed;
+
+    public BulkLoadResult(long members, long teamsCreated, Duration elapsed) {
+        this.members = members;
+        this.teamsCreated = teamsCreated;
+        this.elapsed = elapsed;
+    }
+
+    public double getRowsPerSecond() {
+        long nanos = Math.max(elapsed.toNanos(), 1);
+        return (members + teamsCreated) * 1_000_000_000d / nanos;
+    }
+}
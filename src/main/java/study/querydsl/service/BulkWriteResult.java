@@ -0,0 +1,27 @@
+package study.querydsl.service;
+
+import lombok.Getter;
+import lombok.ToString;
+
+import java.time.Duration;
+
+@Getter
+@ToString
+public class BulkWriteResult {
+    private final String operation;
+    private final long affectedRows;
+    private final int chunks;
+    private final Duration elapsed;
+
+    public BulkWriteResult(String operation, long affectedRows, int chunks, Duration elapsed) {
+        this.operation = operation;
+        this.affectedRows = affectedRows;
+        this.chunks = chunks;
+        this.elapsed = elapsed;
+    }
+
+    public double getRowsPerSecond() {
+        long nanos = Math.max(elapsed.toNanos(), 1);
+        return affectedRows * 1_000_000_000d / nanos;
+    }
+}
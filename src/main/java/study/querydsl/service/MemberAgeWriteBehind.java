@@ -0,0 +1,274 @@
+package study.querydsl.service;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.entity.Member;
+
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManager;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static study.querydsl.entity.QMember.member;
+
+/**
+ * 회원 나이 변경을 모아 두었다가(write-behind) 한꺼번에 반영한다.
+ *
+ * - 같은 회원의 변경은 마지막 값 하나로 합쳐진다. (UPDATE 는 회원당 한 번)
+ * - flush-interval-ms 마다, 또는 대기 중인 회원이 max-pending 을 넘으면 반영한다.
+ * - 반영은 트랜잭션 하나에서 회원을 in 으로 조회해 나이를 바꾸고 커밋한다.
+ *   UPDATE 는 hibernate.jdbc.batch_size 단위 JDBC batch 로 나가고, 변경 감지를 거치므로
+ *   커밋 이벤트(팀 통계, 쿼리 캐시, 이름 인덱스)도 그대로 동작한다.
+ *
+ * 내구성 : enqueue 가 돌아왔다고 저장된 것은 아니다. 반영 전까지는 메모리에만 있으므로
+ * 프로세스가 비정상 종료하면 마지막 flush 이후의 변경은 사라진다. 정상 종료 때는 남은 변경을 모두 반영한다.
+ * 반영이 실패하면 변경을 다시 대기열에 넣는다. (그 사이 들어온 더 새로운 값이 있으면 그 값이 이긴다)
+ *
+ * 배압 : 대기 중 + 반영 중인 회원 수는 capacity 를 넘지 않는다. 가득 차면 enqueue 는 enqueue-timeout 동안 기다리고,
+ * 그래도 자리가 없으면 WriteBehindFullException 을 던진다. (이미 대기 중인 회원의 변경은 자리를 더 쓰지 않는다)
+ * 반영이 실패하면 retry-backoff 부터 두 배씩(최대 max-retry-backoff) 예약/임계치 flush 를 쉬어서 DB 를 두드리지 않는다.
+ *
+ * 동시 수정 : Member 에 @Version 이 없으므로 flush 는 그 사이 다른 경로(변경 감지, 벌크 update)로 바뀐 나이를
+ * 확인하지 않고 대기열의 값으로 덮어쓴다. (나중에 반영된 쪽이 이긴다)
+ * 나이를 바꾸는 다른 경로와 섞어 쓰려면 이 순서를 감수하거나 그 경로도 write-behind 를 거쳐야 한다.
+ */
+@Slf4j
+@Service
+public class MemberAgeWriteBehind {
+
+    private static final int IN_CHUNK = 1000;
+
+    private final EntityManager em;
+    private final JPAQueryFactory queryFactory;
+    private final TransactionTemplate flushTransaction;
+    private final int maxPending;
+    private final int capacity;
+    private final long enqueueTimeoutNanos;
+    private final long retryBackoffNanos;
+    private final long maxRetryBackoffNanos;
+    private final Semaphore slots;
+    private final Map<Long, PendingAge> pending = new ConcurrentHashMap<>();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final ExecutorService thresholdFlusher;
+    private final AtomicBoolean thresholdFlushScheduled = new AtomicBoolean();
+    private volatile boolean closed;
+    private volatile long retryAtNanos;
+    private int consecutiveFailures;
+
+    private final LongAdder enqueued = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder flushed = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder flushes = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final AtomicLong lastFlushLagMillis = new AtomicLong();
+    private final AtomicLong lastFlushMillis = new AtomicLong();
+
+    public MemberAgeWriteBehind(EntityManager em,
+                                JPAQueryFactory queryFactory,
+                                PlatformTransactionManager transactionManager,
+                                @Value("${app.write-behind.max-pending:10000}") int maxPending,
+                                @Value("${app.write-behind.capacity:100000}") int capacity,
+                                @Value("${app.write-behind.enqueue-timeout:1s}") Duration enqueueTimeout,
+                                @Value("${app.write-behind.retry-backoff:1s}") Duration retryBackoff,
+                                @Value("${app.write-behind.max-retry-backoff:1m}") Duration maxRetryBackoff) {
+        this.em = em;
+        this.queryFactory = queryFactory;
+        this.flushTransaction = new TransactionTemplate(transactionManager);
+        this.flushTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.maxPending = maxPending;
+        this.capacity = capacity;
+        this.enqueueTimeoutNanos = enqueueTimeout.toNanos();
+        this.retryBackoffNanos = retryBackoff.toNanos();
+        this.maxRetryBackoffNanos = maxRetryBackoff.toNanos();
+        this.slots = new Semaphore(capacity);
+        this.thresholdFlusher = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "member-write-behind");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * @throws WriteBehindFullException capacity 만큼 쌓여 있고 enqueue-timeout 안에 자리가 나지 않을 때
+     */
+    public void enqueue(Long memberId, int age) {
+        if (closed) {
+            throw new IllegalStateException("write-behind buffer is closed");
+        }
+        if (pending.computeIfPresent(memberId, (id, old) -> new PendingAge(age, old.firstEnqueuedNanos)) != null) {
+            coalesced.increment();
+        } else {
+            acquireSlot();
+            boolean[] merged = new boolean[1];
+            pending.merge(memberId, new PendingAge(age, System.nanoTime()), (old, latest) -> {
+                merged[0] = true;
+                return new PendingAge(latest.age, old.firstEnqueuedNanos);
+            });
+            if (merged[0]) {
+                coalesced.increment();
+                slots.release();
+            }
+        }
+        enqueued.increment();
+
+        if (pending.size() >= maxPending && thresholdFlushScheduled.compareAndSet(false, true)) {
+            thresholdFlusher.execute(() -> {
+                thresholdFlushScheduled.set(false);
+                flushIfDue();
+            });
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.write-behind.flush-interval-ms:1000}")
+    public void scheduledFlush() {
+        flushIfDue();
+    }
+
+    /**
+     * 지금까지 모인 변경을 반영한다. 동시에 하나의 flush 만 실행된다.
+     * @return 반영한 회원 수
+     */
+    public int flush() {
+        flushLock.lock();
+        try {
+            Map<Long, PendingAge> batch = drain();
+            if (batch.isEmpty()) {
+                return 0;
+            }
+            long start = System.nanoTime();
+            long oldest = batch.values().stream().mapToLong(p -> p.firstEnqueuedNanos).min().orElse(start);
+            try {
+                int applied = flushTransaction.execute(status -> apply(batch));
+                slots.release(batch.size());
+                consecutiveFailures = 0;
+                retryAtNanos = 0;
+                flushed.add(applied);
+                dropped.add(batch.size() - applied);
+                flushes.increment();
+                lastFlushLagMillis.set((start - oldest) / 1_000_000);
+                lastFlushMillis.set((System.nanoTime() - start) / 1_000_000);
+                return applied;
+            } catch (RuntimeException e) {
+                failures.increment();
+                // 다시 넣은 변경은 자리를 그대로 쓰고, 더 새로운 값에 밀린 변경만 자리를 돌려준다.
+                batch.forEach((memberId, age) -> {
+                    if (pending.putIfAbsent(memberId, age) != null) {
+                        slots.release();
+                    }
+                });
+                long backoff = Math.min(retryBackoffNanos << Math.min(consecutiveFailures, 20), maxRetryBackoffNanos);
+                consecutiveFailures++;
+                retryAtNanos = System.nanoTime() + backoff;
+                log.warn("write-behind flush of {} members failed, requeued, retrying in {} ms",
+                        batch.size(), backoff / 1_000_000, e);
+                return 0;
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    public WriteBehindStats stats() {
+        long now = System.nanoTime();
+        long oldest = pending.values().stream().mapToLong(p -> p.firstEnqueuedNanos).min().orElse(now);
+        return new WriteBehindStats(pending.size(), (now - oldest) / 1_000_000,
+                enqueued.sum(), coalesced.sum(), flushed.sum(), dropped.sum(), rejected.sum(),
+                flushes.sum(), failures.sum(), lastFlushLagMillis.get(), lastFlushMillis.get());
+    }
+
+    /**
+     * 정상 종료 때 더 받지 않고 남은 변경을 모두 반영한다.
+     */
+    @PreDestroy
+    public void close() {
+        closed = true;
+        thresholdFlusher.shutdown();
+        for (int attempt = 0; attempt < 3 && !pending.isEmpty(); attempt++) {
+            flush();
+        }
+        if (!pending.isEmpty()) {
+            log.error("write-behind closed with {} unflushed member updates", pending.size());
+        }
+    }
+
+    /**
+     * 예약/임계치 flush, 실패 후 backoff 중이면 건너뛴다.
+     */
+    private void flushIfDue() {
+        if (retryAtNanos != 0 && System.nanoTime() - retryAtNanos < 0) {
+            return;
+        }
+        flush();
+    }
+
+    private void acquireSlot() {
+        try {
+            if (!slots.tryAcquire(enqueueTimeoutNanos, TimeUnit.NANOSECONDS)) {
+                rejected.increment();
+                throw new WriteBehindFullException(capacity);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while waiting for write-behind capacity", e);
+        }
+    }
+
+    private Map<Long, PendingAge> drain() {
+        Map<Long, PendingAge> batch = new HashMap<>();
+        for (Long memberId : pending.keySet()) {
+            PendingAge removed = pending.remove(memberId);
+            if (removed != null) {
+                batch.put(memberId, removed);
+            }
+        }
+        return batch;
+    }
+
+    private int apply(Map<Long, PendingAge> batch) {
+        List<Long> ids = new ArrayList<>(batch.keySet());
+        int applied = 0;
+        for (int from = 0; from < ids.size(); from += IN_CHUNK) {
+            List<Member> members = queryFactory
+                    .selectFrom(member)
+                    .where(member.id.in(ids.subList(from, Math.min(from + IN_CHUNK, ids.size()))))
+                    .fetch();
+            for (Member m : members) {
+                m.setAge(batch.get(m.getId()).age);
+                applied++;
+            }
+            em.flush();
+            em.clear();
+        }
+        return applied;
+    }
+
+    private static final class PendingAge {
+        private final int age;
+        private final long firstEnqueuedNanos;
+
+        private PendingAge(int age, long firstEnqueuedNanos) {
+            this.age = age;
+            this.firstEnqueuedNanos = firstEnqueuedNanos;
+        }
+    }
+}
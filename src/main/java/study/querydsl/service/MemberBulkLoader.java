@@ -0,0 +1,119 @@
+package study.querydsl.service;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * 회원/팀 대량 적재
+ * - id 는 시퀀스 pooled optimizer 로 allocationSize 만큼 한 번에 할당받는다. (행마다 시퀀스 조회 X)
+ * - insert 는 hibernate.jdbc.batch_size / order_inserts 설정으로 JDBC batch 로 묶인다.
+ * - chunkSize 건마다 flush/clear 해서 영속성 컨텍스트가 커지지 않게 한다.
+ * - 팀 이름은 chunk 를 적재하기 전에 처음 보는 이름만 모아 in 쿼리 한 번으로 찾는다.
+ *   (행마다 팀을 조회하면 FlushMode AUTO 가 쌓아 둔 insert 를 그때마다 flush 해서 batch 가 깨진다)
+ */
+@Slf4j
+@Service
+public class MemberBulkLoader {
+
+    private final EntityManager em;
+    private final JPAQueryFactory queryFactory;
+    private final int chunkSize;
+
+    public MemberBulkLoader(EntityManager em,
+                            JPAQueryFactory queryFactory,
+                            @Value("${app.bulk-load.chunk-size:1000}") int chunkSize) {
+        this.em = em;
+        this.queryFactory = queryFactory;
+        this.chunkSize = chunkSize;
+    }
+
+    @Transactional
+    public BulkLoadResult load(Stream<MemberRecord> records) {
+        long start = System.nanoTime();
+        Map<String, Long> teamIds = new HashMap<>();
+        long members = 0;
+        long teamsCreated = 0;
+
+        List<MemberRecord> chunk = new ArrayList<>(chunkSize);
+        Iterator<MemberRecord> iterator = records.iterator();
+        while (iterator.hasNext()) {
+            chunk.add(iterator.next());
+            if (chunk.size() < chunkSize && iterator.hasNext()) {
+                continue;
+            }
+
+            teamsCreated += resolveTeams(chunk, teamIds);
+            for (MemberRecord record : chunk) {
+                Member member = new Member(record.getUsername(), record.getAge());
+                if (record.getTeamName() != null) {
+                    // changeTeam() 은 team.members 컬렉션을 건드리므로, 참조(프록시)만 연결한다.
+                    member.setTeam(em.getReference(Team.class, teamIds.get(record.getTeamName())));
+                }
+                em.persist(member);
+            }
+            members += chunk.size();
+            em.flush();
+            em.clear();
+            chunk.clear();
+        }
+
+        BulkLoadResult result = new BulkLoadResult(members, teamsCreated, Duration.ofNanos(System.nanoTime() - start));
+        log.info("bulk loaded {} members, {} new teams in {} ms ({} rows/s)",
+                result.getMembers(), result.getTeamsCreated(), result.getElapsed().toMillis(),
+                String.format("%.0f", result.getRowsPerSecond()));
+        return result;
+    }
+
+    /**
+     * chunk 에서 처음 보는 팀 이름을 한 번에 조회하고, 없는 팀은 만든다. (같은 이름의 팀이 여럿이면 id 가 가장 작은 팀)
+     * @return 새로 만든 팀 수
+     */
+    private int resolveTeams(List<MemberRecord> chunk, Map<String, Long> teamIds) {
+        Set<String> unknown = new LinkedHashSet<>();
+        for (MemberRecord record : chunk) {
+            if (record.getTeamName() != null && !teamIds.containsKey(record.getTeamName())) {
+                unknown.add(record.getTeamName());
+            }
+        }
+        if (unknown.isEmpty()) {
+            return 0;
+        }
+
+        queryFactory
+                .select(team.name, team.id.min())
+                .from(team)
+                .where(team.name.in(unknown))
+                .groupBy(team.name)
+                .fetch()
+                .forEach(row -> teamIds.put(row.get(team.name), row.get(team.id.min())));
+
+        int created = 0;
+        for (String name : unknown) {
+            if (!teamIds.containsKey(name)) {
+                Team newTeam = new Team(name);
+                em.persist(newTeam);
+                teamIds.put(name, newTeam.getId());
+                created++;
+            }
+        }
+        return created;
+    }
+}
@@ -0,0 +1,193 @@
+package study.querydsl.service;
+
+import com.querydsl.core.types.Predicate;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Hibernate;
+import org.hibernate.engine.spi.EntityEntry;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.cache.QueryResultCache;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.search.UsernameIndex;
+import study.querydsl.stats.TeamStatsRegistry;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+
+import static study.querydsl.entity.QMember.member;
+
+/**
+ * 회원 벌크 update/delete
+ *
+ * 엔티티를 하나씩 읽어서 변경 감지로 고치면 행마다 UPDATE 가 나가므로, JPQL 벌크 연산을 id 구간별로 나눠 실행한다.
+ * - 조건에 맞는 id 를 키셋(id > 직전 구간의 끝 order by id limit chunkSize)으로 읽고, 그 첫 id ~ 마지막 id 구간에 벌크 연산을 실행한다.
+ *   id 가 드문드문해도 빈 구간을 돌지 않고, 구간마다 조건에 맞는 행은 chunkSize 개 이하다.
+ * - 구간마다 별도 트랜잭션으로 커밋해서 락을 잡는 시간과 undo 크기를 작게 유지한다.
+ *   도중에 실패하면 이미 커밋된 구간은 되돌리지 않는다.
+ * - 벌크 연산은 영속성 컨텍스트를 거치지 않으므로, 현재 스레드의 영속성 컨텍스트에 남은 회원(과 회원 컬렉션이 로딩된 팀)을 detach 한다.
+ * - 커밋 이벤트가 없으므로 쿼리 결과 캐시는 clause 에서, 팀 통계는 끝난 뒤 rebuild 로 맞춘다.
+ *   삭제는 구간이 커밋될 때마다 그 구간의 id 를 회원 이름 인덱스에서 뺀다. (update 는 이름을 바꾸지 않는다)
+ *
+ * condition 에는 회원 자신의 컬럼만 사용할 수 있다. (벌크 연산에는 조인이 없다, member.team.id 는 가능)
+ * 구간마다 커밋하므로 쓰기 트랜잭션 안에서는 호출할 수 없다.
+ */
+@Slf4j
+@Service
+public class MemberBulkWriter {
+
+    private final EntityManager em;
+    private final EntityManagerFactory emf;
+    private final JPAQueryFactory queryFactory;
+    private final QueryResultCache queryResultCache;
+    private final TeamStatsRegistry teamStatsRegistry;
+    private final UsernameIndex usernameIndex;
+    private final TransactionTemplate chunkTransaction;
+    private final int chunkSize;
+
+    public MemberBulkWriter(EntityManager em,
+                            EntityManagerFactory emf,
+                            JPAQueryFactory queryFactory,
+                            QueryResultCache queryResultCache,
+                            TeamStatsRegistry teamStatsRegistry,
+                            UsernameIndex usernameIndex,
+                            PlatformTransactionManager transactionManager,
+                            @Value("${app.bulk-write.chunk-size:1000}") int chunkSize) {
+        this.em = em;
+        this.emf = emf;
+        this.queryFactory = queryFactory;
+        this.queryResultCache = queryResultCache;
+        this.teamStatsRegistry = teamStatsRegistry;
+        this.usernameIndex = usernameIndex;
+        this.chunkTransaction = new TransactionTemplate(transactionManager);
+        this.chunkTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.chunkSize = chunkSize;
+    }
+
+    public BulkWriteResult updateAge(Predicate condition, int age) {
+        return execute("updateAge", condition, (range, where) -> queryResultCache.update(member)
+                .set(member.age, age)
+                .where(where, range)
+                .execute());
+    }
+
+    public BulkWriteResult addAge(Predicate condition, int delta) {
+        return execute("addAge", condition, (range, where) -> queryResultCache.update(member)
+                .set(member.age, member.age.add(delta))
+                .where(where, range)
+                .execute());
+    }
+
+    /**
+     * @param teamId null 이면 팀을 비운다.
+     */
+    public BulkWriteResult changeTeam(Predicate condition, Long teamId) {
+        return execute("changeTeam", condition, (range, where) -> {
+            if (teamId == null) {
+                return queryResultCache.update(member)
+                        .setNull(member.team)
+                        .where(where, range)
+                        .execute();
+            }
+            return queryResultCache.update(member)
+                    .set(member.team, em.getReference(Team.class, teamId))
+                    .where(where, range)
+                    .execute();
+        });
+    }
+
+    public BulkWriteResult delete(Predicate condition) {
+        return execute("delete", condition, (range, where) -> queryResultCache.delete(member)
+                        .where(where, range)
+                        .execute(),
+                usernameIndex::removeAll);
+    }
+
+    private BulkWriteResult execute(String operation, Predicate condition,
+                                    BiFunction<Predicate, Predicate, Long> chunk) {
+        return execute(operation, condition, chunk, ids -> {
+        });
+    }
+
+    /**
+     * @param committed 구간이 커밋된 뒤 그 구간에서 읽은 id 로 호출한다.
+     */
+    private BulkWriteResult execute(String operation, Predicate condition,
+                                    BiFunction<Predicate, Predicate, Long> chunk,
+                                    Consumer<List<Long>> committed) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            throw new IllegalStateException("bulk " + operation + " commits per chunk and cannot run inside a read-write transaction");
+        }
+
+        long start = System.nanoTime();
+        long affected = 0;
+        int chunks = 0;
+        long lastId = Long.MIN_VALUE;
+        while (true) {
+            List<Long> ids = queryFactory
+                    .select(member.id)
+                    .from(member)
+                    .where(condition, member.id.gt(lastId))
+                    .orderBy(member.id.asc())
+                    .limit(chunkSize)
+                    .fetch();
+            if (ids.isEmpty()) {
+                break;
+            }
+            Predicate range = member.id.between(ids.get(0), ids.get(ids.size() - 1));
+            Long rows = chunkTransaction.execute(status -> {
+                long updated = chunk.apply(range, condition);
+                detachMembers();
+                return updated;
+            });
+            committed.accept(ids);
+            affected += rows;
+            chunks++;
+            if (ids.size() < chunkSize) {
+                break;
+            }
+            lastId = ids.get(ids.size() - 1);
+        }
+        if (chunks > 0) {
+            detachMembers();
+            teamStatsRegistry.rebuild();
+        }
+
+        BulkWriteResult result = new BulkWriteResult(operation, affected, chunks,
+                Duration.ofNanos(System.nanoTime() - start));
+        log.info("bulk {} affected {} members in {} chunks, {} ms ({} rows/s)",
+                operation, result.getAffectedRows(), result.getChunks(), result.getElapsed().toMillis(),
+                String.format("%.0f", result.getRowsPerSecond()));
+        return result;
+    }
+
+    /**
+     * 현재 스레드에 묶인 영속성 컨텍스트(트랜잭션, OSIV)에서 벌크 연산 전 상태를 가진 회원을 떼어낸다.
+     * 팀의 members 컬렉션이 로딩되어 있으면 그 팀도 떼어내서 다음 접근 때 다시 읽게 한다.
+     */
+    private void detachMembers() {
+        if (!TransactionSynchronizationManager.hasResource(emf)) {
+            return;
+        }
+        SessionImplementor session = em.unwrap(SessionImplementor.class);
+        for (Map.Entry<Object, EntityEntry> entry : session.getPersistenceContext().reentrantSafeEntityEntries()) {
+            Object entity = entry.getKey();
+            if (entity instanceof Member
+                    || entity instanceof Team && Hibernate.isInitialized(((Team) entity).getMembers())) {
+                em.detach(entity);
+            }
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package study.querydsl.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.hibernate.CacheMode;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.query.Query;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * 회원 + 팀 전체를 CSV / NDJSON 으로 내려준다.
+ * fetch() 로 List 를 만들지 않고, forward-only 스크롤로 한 행씩 읽어서 바로 출력 스트림에 쓴다.
+ * 엔티티가 아닌 컬럼만 조회하므로 영속성 컨텍스트에 쌓이는 것이 없고, 청크 단위로 출력 버퍼를 비워서 행 수와 상관없이 메모리 사용량이 일정하다.
+ * 영속성 컨텍스트는 clear 하지 않는다. (호출한 쪽 트랜잭션에 참여했을 때 flush 하지 않은 변경이 사라진다)
+ */
+@Service
+public class MemberExportService {
+
+    static final String[] COLUMNS = {"member_id", "username", "age", "team_id", "team_name"};
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory()
+            .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+    private final JPAQueryFactory queryFactory;
+    private final int fetchSize;
+    private final int chunkSize;
+
+    public MemberExportService(JPAQueryFactory queryFactory,
+                               @Value("${app.export.fetch-size:1000}") int fetchSize,
+                               @Value("${app.export.chunk-size:1000}") int chunkSize) {
+        this.queryFactory = queryFactory;
+        this.fetchSize = fetchSize;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * @return 내보낸 행 수
+     */
+    @Transactional(readOnly = true)
+    public long export(ExportFormat format, OutputStream out) throws IOException {
+        JPAQuery<Tuple> query = queryFactory
+                .select(member.id, member.username, member.age, team.id, team.name)
+                .from(member)
+                .leftJoin(member.team, team)
+                .orderBy(member.id.asc());
+
+        Query<?> hibernateQuery = query.createQuery().unwrap(Query.class);
+        hibernateQuery.setFetchSize(fetchSize);
+        hibernateQuery.setReadOnly(true);
+        hibernateQuery.setCacheMode(CacheMode.IGNORE);
+
+        long count = 0;
+        ScrollableResults rows = hibernateQuery.scroll(ScrollMode.FORWARD_ONLY);
+        try (RowWriter writer = format == ExportFormat.CSV ? new CsvRowWriter(out) : new NdjsonRowWriter(out)) {
+            while (rows.next()) {
+                writer.write(rows.get());
+                if (++count % chunkSize == 0) {
+                    writer.flush();
+                }
+            }
+        } finally {
+            rows.close();
+        }
+        return count;
+    }
+
+    private interface RowWriter extends AutoCloseable {
+        void write(Object[] row) throws IOException;
+
+        void flush() throws IOException;
+
+        @Override
+        void close() throws IOException;
+    }
+
+    private static final class CsvRowWriter implements RowWriter {
+        private final Writer writer;
+
+        private CsvRowWriter(OutputStream out) throws IOException {
+            this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+            writeLine(COLUMNS);
+        }
+
+        @Override
+        public void write(Object[] row) throws IOException {
+            writeLine(row);
+        }
+
+        private void writeLine(Object[] row) throws IOException {
+            for (int i = 0; i < row.length; i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                if (row[i] != null) {
+                    writer.write(escape(row[i].toString()));
+                }
+            }
+            writer.write('\n');
+        }
+
+        private static String escape(String value) {
+            if (value.indexOf(',') < 0 && value.indexOf('"') < 0
+                    && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+                return value;
+            }
+            return '"' + value.replace("\"", "\"\"") + '"';
+        }
+
+        @Override
+        public void flush() throws IOException {
+            writer.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            // 응답 스트림은 컨테이너가 닫는다.
+            writer.flush();
+        }
+    }
+
+    private static final class NdjsonRowWriter implements RowWriter {
+        private final JsonGenerator generator;
+
+        private NdjsonRowWriter(OutputStream out) throws IOException {
+            this.generator = JSON_FACTORY.createGenerator(out);
+            // 루트 값 사이 기본 구분자(공백) 대신 행마다 줄바꿈을 직접 쓴다.
+            this.generator.setRootValueSeparator(null);
+        }
+
+        @Override
+        public void write(Object[] row) throws IOException {
+            generator.writeStartObject();
+            for (int i = 0; i < row.length; i++) {
+                generator.writeFieldName(COLUMNS[i]);
+                writeValue(row[i]);
+            }
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        }
+
+        private void writeValue(Object value) throws IOException {
+            if (value == null) {
+                generator.writeNull();
+            } else if (value instanceof Long) {
+                generator.writeNumber((Long) value);
+            } else if (value instanceof Integer) {
+                generator.writeNumber((Integer) value);
+            } else {
+                generator.writeString(value.toString());
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            generator.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            generator.close();
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package study.querydsl.service;
+
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * 대량 적재용 회원 한 건, teamName 이 null 이면 팀 없는 회원
+ */
+@Getter
+@ToString
+public class MemberRecord {
+    private final String username;
+    private final int age;
+    private final String teamName;
+
+    public MemberRecord(String username, int age, String teamName) {
+        this.username = username;
+        this.age = age;
+        this.teamName = teamName;
+    }
+}
@@ -0,0 +1,8 @@
+package study.querydsl.service;
+
+public class WriteBehindFullException extends RuntimeException {
+
+    public WriteBehindFullException(int capacity) {
+        super("write-behind buffer is full (" + capacity + " pending members)");
+    }
+}
@@ -0,0 +1,44 @@
+package study.querydsl.service;
+
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * MemberAgeWriteBehind 상태
+ * - enqueued : 받은 변경 수, coalesced : 이미 대기 중인 회원의 값을 덮어쓴 수 (UPDATE 가 절약된 수)
+ * - flushed : DB 에 반영한 회원 수, dropped : 반영하려 했지만 회원이 없어서 버린 수
+ * - rejected : 대기열이 가득 차서 거절한 변경 수
+ * - oldestPendingMillis : 대기 중인 변경 중 가장 오래된 것의 나이 (현재 지연)
+ * - lastFlushLagMillis : 마지막 flush 에서 가장 오래 기다린 변경의 대기 시간
+ */
+@Getter
+@ToString
+public class WriteBehindStats {
+    private final int pending;
+    private final long oldestPendingMillis;
+    private final long enqueued;
+    private final long coalesced;
+    private final long flushed;
+    private final long dropped;
+    private final long rejected;
+    private final long flushes;
+    private final long failures;
+    private final long lastFlushLagMillis;
+    private final long lastFlushMillis;
+
+    public WriteBehindStats(int pending, long oldestPendingMillis, long enqueued, long coalesced,
+                            long flushed, long dropped, long rejected, long flushes, long failures,
+                            long lastFlushLagMillis, long lastFlushMillis) {
+        this.pending = pending;
+        this.oldestPendingMillis = oldestPendingMillis;
+        this.enqueued = enqueued;
+        this.coalesced = coalesced;
+        this.flushed = flushed;
+        this.dropped = dropped;
+        this.rejected = rejected;
+        this.flushes = flushes;
+        this.failures = failures;
+        this.lastFlushLagMillis = lastFlushLagMillis;
+        this.lastFlushMillis = lastFlushMillis;
+    }
+}
@@ -0,0 +1,42 @@
+package study.querydsl.shard;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * 회원 나이 집계 (불변), 회원이 없으면 minAge/maxAge/averageAge 는 null
+ * 샤드별 집계를 merge 로 합친다. 평균은 샤드별 평균의 평균이 아니라 합친 sum / count 로 구한다.
+ */
+@Getter
+@ToString
+@EqualsAndHashCode
+public class AgeStatistics {
+    private final long memberCount;
+    private final long ageSum;
+    private final Integer minAge;
+    private final Integer maxAge;
+
+    public AgeStatistics(long memberCount, long ageSum, Integer minAge, Integer maxAge) {
+        this.memberCount = memberCount;
+        this.ageSum = ageSum;
+        this.minAge = minAge;
+        this.maxAge = maxAge;
+    }
+
+    public static AgeStatistics empty() {
+        return new AgeStatistics(0, 0, null, null);
+    }
+
+    public AgeStatistics merge(AgeStatistics other) {
+        return new AgeStatistics(
+                memberCount + other.memberCount,
+                ageSum + other.ageSum,
+                minAge == null ? other.minAge : other.minAge == null ? minAge : Math.min(minAge, other.minAge),
+                maxAge == null ? other.maxAge : other.maxAge == null ? maxAge : Math.max(maxAge, other.maxAge));
+    }
+
+    public Double getAverageAge() {
+        return memberCount == 0 ? null : (double) ageSum / memberCount;
+    }
+}
@@ -0,0 +1,119 @@
+package study.querydsl.shard;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.io.Closeable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * 샤드 하나 (커넥션 풀 + EntityManagerFactory + 트랜잭션 매니저)
+ * 이 샤드에서 만든 행의 id 는 [index << ID_BITS, (index + 1) << ID_BITS) 범위에 있다.
+ * 비동기 조회(readAsync)는 샤드마다 커넥션 풀 크기만큼의 스레드에서 실행하므로, 한 샤드가 느려도 다른 샤드의 조회는 밀리지 않고
+ * 스레드가 커넥션을 기다리며 쌓이지도 않는다.
+ */
+public class Shard implements Closeable {
+
+    public static final int ID_BITS = 40;
+
+    private final int index;
+    private final HikariDataSource dataSource;
+    private final EntityManagerFactory entityManagerFactory;
+    private final EntityManager entityManager;
+    private final JPAQueryFactory queryFactory;
+    private final TransactionTemplate writeTransaction;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ExecutorService executor;
+
+    public Shard(int index, HikariDataSource dataSource, EntityManagerFactory entityManagerFactory) {
+        this.index = index;
+        this.dataSource = dataSource;
+        this.entityManagerFactory = entityManagerFactory;
+        this.entityManager = SharedEntityManagerCreator.createSharedEntityManager(entityManagerFactory);
+        this.queryFactory = new JPAQueryFactory(entityManager);
+
+        JpaTransactionManager transactionManager = new JpaTransactionManager(entityManagerFactory);
+        this.writeTransaction = new TransactionTemplate(transactionManager);
+        this.writeTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.readOnlyTransaction.setReadOnly(true);
+
+        AtomicInteger sequence = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(dataSource.getMaximumPoolSize(), runnable -> {
+            Thread thread = new Thread(runnable, "shard" + index + "-query-" + sequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public static long idBase(int index) {
+        return (long) index << ID_BITS;
+    }
+
+    public static int indexOf(long id) {
+        return (int) (id >>> ID_BITS);
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public HikariDataSource getDataSource() {
+        return dataSource;
+    }
+
+    /**
+     * 이 샤드의 새 읽기 전용 트랜잭션에서 실행한다.
+     */
+    public <T> T read(Function<JPAQueryFactory, T> query) {
+        return readOnlyTransaction.execute(status -> query.apply(queryFactory));
+    }
+
+    /**
+     * 이 샤드의 스레드에서 read 를 실행한다.
+     * deadlineNanos(System.nanoTime 기준)까지 남은 시간을 트랜잭션 timeout 으로 걸어서, 그때까지 끝나지 않은 쿼리는 DB 에서 끊긴다.
+     */
+    public <T> CompletableFuture<T> readAsync(Function<JPAQueryFactory, T> query, long deadlineNanos) {
+        return CompletableFuture.supplyAsync(() -> {
+            long remaining = deadlineNanos - System.nanoTime();
+            if (remaining <= 0) {
+                throw new QueryTimeoutException(this + " query did not start in time");
+            }
+            TransactionTemplate bounded = new TransactionTemplate(readOnlyTransaction.getTransactionManager(), readOnlyTransaction);
+            bounded.setTimeout((int) Math.min(Integer.MAX_VALUE, (remaining + 999_999_999) / 1_000_000_000));
+            return bounded.execute(status -> query.apply(queryFactory));
+        }, executor);
+    }
+
+    /**
+     * 이 샤드의 새 트랜잭션에서 실행하고 커밋한다.
+     */
+    public <T> T write(BiFunction<EntityManager, JPAQueryFactory, T> work) {
+        return writeTransaction.execute(status -> work.apply(entityManager, queryFactory));
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+        entityManagerFactory.close();
+        dataSource.close();
+    }
+
+    @Override
+    public String toString() {
+        return "shard" + index;
+    }
+}
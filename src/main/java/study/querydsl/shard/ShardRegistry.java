@@ -0,0 +1,113 @@
+package study.querydsl.shard;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.springframework.dao.QueryTimeoutException;
+
+import java.io.Closeable;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+
+/**
+ * 샤드 목록과 라우팅 규칙, 모든 샤드에 같은 쿼리를 동시에 보내는 scatter 를 가진다.
+ *
+ * - 기존 행 : id 의 상위 비트(Shard.indexOf)가 샤드 번호다. 회원은 팀과 같은 샤드에 저장하므로 팀 id 로 찾을 수 있다.
+ * - 새 팀 : 팀 이름 해시로 샤드를 고른다. (id 는 샤드의 시퀀스가 정하므로 만들기 전에는 id 로 고를 수 없다)
+ *   같은 이름의 팀은 같은 샤드에 있으므로 팀 이름 조건이 있는 조회도 샤드 하나만 본다.
+ * - 팀이 없는 새 회원 : 회원 이름 해시로 샤드를 고른다.
+ */
+public class ShardRegistry implements Closeable {
+
+    private final List<Shard> shards;
+    private final long timeoutNanos;
+
+    public ShardRegistry(List<Shard> shards, Duration timeout) {
+        if (shards.isEmpty()) {
+            throw new IllegalArgumentException("at least one shard is required");
+        }
+        this.shards = Collections.unmodifiableList(new ArrayList<>(shards));
+        this.timeoutNanos = timeout.toNanos();
+    }
+
+    public List<Shard> getShards() {
+        return shards;
+    }
+
+    public int size() {
+        return shards.size();
+    }
+
+    /**
+     * 이미 저장된 팀/회원 id 로 샤드를 찾는다.
+     */
+    public Shard shardOf(long id) {
+        int index = Shard.indexOf(id);
+        if (id <= 0 || index >= shards.size()) {
+            throw new IllegalArgumentException("id " + id + " does not belong to any shard");
+        }
+        return shards.get(index);
+    }
+
+    /**
+     * 키(팀 이름, 팀 없는 회원의 이름) 해시로 샤드를 고른다.
+     */
+    public Shard shardForKey(String key) {
+        return shards.get(Math.floorMod(key.hashCode(), shards.size()));
+    }
+
+    /**
+     * 모든 샤드에서 query 를 동시에 실행하고, 샤드 순서대로 결과를 돌려준다. (샤드마다 그 샤드의 스레드에서 실행)
+     * 하나라도 실패하면 그 예외를 던지고 나머지 샤드의 결과는 버린다.
+     * 취소로는 실행 중인 쿼리가 멈추지 않으므로, 샤드 쿼리마다 timeout 시각까지 남은 시간을 쿼리 timeout 으로 건다.
+     */
+    public <T> List<T> scatter(Function<JPAQueryFactory, T> query) {
+        long deadline = System.nanoTime() + timeoutNanos;
+        List<CompletableFuture<T>> futures = new ArrayList<>(shards.size());
+        for (Shard shard : shards) {
+            futures.add(shard.readAsync(query, deadline));
+        }
+
+        List<T> results = new ArrayList<>(shards.size());
+        try {
+            for (CompletableFuture<T> future : futures) {
+                results.add(await(future, deadline));
+            }
+            return results;
+        } finally {
+            futures.forEach(future -> future.cancel(false));
+        }
+    }
+
+    private static <T> T await(CompletableFuture<T> future, long deadlineNanos) {
+        try {
+            return future.get(Math.max(deadlineNanos - System.nanoTime(), 0), TimeUnit.NANOSECONDS);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        } catch (TimeoutException e) {
+            throw new QueryTimeoutException("shard query did not finish in time", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while waiting for shard query", e);
+        }
+    }
+
+    @Override
+    public void close() {
+        for (Shard shard : shards) {
+            shard.close();
+        }
+    }
+}
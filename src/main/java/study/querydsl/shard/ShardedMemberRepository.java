@@ -0,0 +1,187 @@
+package study.querydsl.shard;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.springframework.util.StringUtils;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.QMemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.paging.KeysetKey;
+import study.querydsl.paging.KeysetPage;
+import study.querydsl.paging.KeysetSort;
+import study.querydsl.repository.MemberQueryRepository;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.Function;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * 샤드에 나눠 저장된 회원/팀 조회
+ *
+ * - 팀 하나에 대한 조회(팀 id, 팀 이름 조건)는 그 팀이 있는 샤드 하나에서만 실행한다.
+ * - 그 외에는 모든 샤드에 같은 쿼리를 동시에 보내고(scatter) 결과를 합친다.(gather)
+ *   집계는 count / sum / min / max 를 합치고, 평균은 합친 sum / count 로 구한다.
+ *   정렬 페이지는 샤드마다 정렬된 size + 1 건을 가져와 k-way 병합한 뒤 앞에서 size + 1 건만 쓴다.
+ */
+public class ShardedMemberRepository {
+
+    /**
+     * 회원 나이 내림차순, 회원 이름 올림차순(null 은 마지막), 회원 id 올림차순
+     */
+    public static final KeysetSort<MemberTeamDto> AGE_DESC_USERNAME_ASC = KeysetSort.of(
+            KeysetKey.desc(member.age, MemberTeamDto::getAge),
+            KeysetKey.asc(member.username, MemberTeamDto::getUsername).nullsLast(),
+            KeysetKey.asc(member.id, MemberTeamDto::getMemberId)
+    );
+
+    private final ShardRegistry shardRegistry;
+
+    public ShardedMemberRepository(ShardRegistry shardRegistry) {
+        this.shardRegistry = shardRegistry;
+    }
+
+    public Long saveTeam(String name) {
+        return shardRegistry.shardForKey(name).write((em, queryFactory) -> {
+            Team newTeam = new Team(name);
+            em.persist(newTeam);
+            return newTeam.getId();
+        });
+    }
+
+    /**
+     * 팀이 있으면 팀과 같은 샤드에 저장한다.
+     */
+    public Long saveMember(String username, int age, Long teamId) {
+        Shard shard = teamId != null ? shardRegistry.shardOf(teamId) : shardRegistry.shardForKey(username);
+        return shard.write((em, queryFactory) -> {
+            Team memberTeam = teamId != null ? em.getReference(Team.class, teamId) : null;
+            Member newMember = new Member(username, age, memberTeam);
+            em.persist(newMember);
+            return newMember.getId();
+        });
+    }
+
+    public List<MemberTeamDto> findByTeamId(Long teamId) {
+        return shardRegistry.shardOf(teamId).read(queryFactory -> queryFactory
+                .select(memberTeamDto())
+                .from(member)
+                .join(member.team, team)
+                .where(team.id.eq(teamId))
+                .orderBy(member.id.asc())
+                .fetch());
+    }
+
+    public AgeStatistics ageStatistics(MemberSearchCondition condition) {
+        AgeStatistics merged = AgeStatistics.empty();
+        for (AgeStatistics statistics : gather(condition, queryFactory -> ageStatistics(queryFactory, condition))) {
+            merged = merged.merge(statistics);
+        }
+        return merged;
+    }
+
+    /**
+     * AGE_DESC_USERNAME_ASC 순서의 키셋 페이지
+     * 커서는 샤드와 관계없이 정렬 키 값만 담으므로, 어느 샤드에나 같은 seek 조건을 적용할 수 있다.
+     */
+    public KeysetPage<MemberTeamDto> search(MemberSearchCondition condition, String cursor, int size) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("page size must be positive: " + size);
+        }
+        KeysetSort<MemberTeamDto> sort = AGE_DESC_USERNAME_ASC;
+        List<List<MemberTeamDto>> pages = gather(condition, queryFactory -> searchQuery(queryFactory, condition)
+                .where(sort.seek(cursor))
+                .orderBy(sort.orderSpecifiers())
+                .limit(size + 1L)
+                .fetch());
+        return sort.pageOf(mergeSorted(pages, sort.comparator(), size + 1), size);
+    }
+
+    /**
+     * 팀 이름 조건이 있으면 그 팀이 있는 샤드 하나, 없으면 모든 샤드에서 실행한다.
+     */
+    private <T> List<T> gather(MemberSearchCondition condition, Function<JPAQueryFactory, T> query) {
+        if (StringUtils.hasText(condition.getTeamName())) {
+            List<T> results = new ArrayList<>(1);
+            results.add(shardRegistry.shardForKey(condition.getTeamName()).read(query));
+            return results;
+        }
+        return shardRegistry.scatter(query);
+    }
+
+    private static AgeStatistics ageStatistics(JPAQueryFactory queryFactory, MemberSearchCondition condition) {
+        Tuple row = queryFactory
+                .select(member.count(), member.age.sum(), member.age.min(), member.age.max())
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(MemberQueryRepository.searchCondition(condition))
+                .fetchOne();
+        long count = row.get(0, Number.class).longValue();
+        if (count == 0) {
+            return AgeStatistics.empty();
+        }
+        return new AgeStatistics(count,
+                row.get(1, Number.class).longValue(),
+                row.get(2, Number.class).intValue(),
+                row.get(3, Number.class).intValue());
+    }
+
+    private static JPAQuery<MemberTeamDto> searchQuery(JPAQueryFactory queryFactory, MemberSearchCondition condition) {
+        return queryFactory
+                .select(memberTeamDto())
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(MemberQueryRepository.searchCondition(condition));
+    }
+
+    private static QMemberTeamDto memberTeamDto() {
+        return new QMemberTeamDto(member.id, member.username, member.age, team.id, team.name);
+    }
+
+    /**
+     * 각각 정렬된 목록들을 하나로 병합해 앞에서 limit 건을 돌려준다.
+     */
+    static <T> List<T> mergeSorted(List<List<T>> sortedLists, Comparator<T> comparator, int limit) {
+        PriorityQueue<Head<T>> heads = new PriorityQueue<>(
+                Math.max(sortedLists.size(), 1), (a, b) -> comparator.compare(a.value(), b.value()));
+        for (List<T> list : sortedLists) {
+            if (!list.isEmpty()) {
+                heads.add(new Head<>(list));
+            }
+        }
+
+        List<T> merged = new ArrayList<>(limit);
+        while (merged.size() < limit && !heads.isEmpty()) {
+            Head<T> head = heads.poll();
+            merged.add(head.value());
+            if (head.advance()) {
+                heads.add(head);
+            }
+        }
+        return merged;
+    }
+
+    private static final class Head<T> {
+        private final List<T> list;
+        private int position;
+
+        private Head(List<T> list) {
+            this.list = list;
+        }
+
+        T value() {
+            return list.get(position);
+        }
+
+        boolean advance() {
+            return ++position < list.size();
+        }
+    }
+}
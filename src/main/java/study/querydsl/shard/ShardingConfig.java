@@ -0,0 +1,124 @@
+package study.querydsl.shard;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.JpaProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.orm.jpa.EntityManagerFactoryBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import study.querydsl.entity.Member;
+
+import javax.persistence.EntityManagerFactory;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * app.sharding.enabled=true 이면 기본 DataSource 와 별개로 샤드마다 커넥션 풀과 EntityManagerFactory 를 만든다.
+ *
+ * <pre>
+ * app.sharding:
+ *   enabled: true
+ *   timeout: 30s
+ *   shards:
+ *     - jdbc-url: jdbc:h2:mem:shard0
+ *       username: sa
+ *     - jdbc-url: jdbc:h2:mem:shard1
+ *       username: sa
+ * </pre>
+ *
+ * shards 아래는 HikariConfig 프로퍼티를 그대로 사용한다. JPA 설정(spring.jpa.*, ddl-auto 포함)은 기본 DataSource 와 같다.
+ * 샤드 풀과 EntityManagerFactory 는 빈으로 등록하지 않는다. (기본 EntityManagerFactory, 트랜잭션 매니저와 섞이지 않도록)
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.sharding.enabled", havingValue = "true")
+public class ShardingConfig {
+
+    private static final String PREFIX = "app.sharding.shards";
+
+    /**
+     * 샤드 번호가 바뀌면 id 로 샤드를 찾을 수 없으므로, 샤드 목록은 뒤에 추가만 해야 한다.
+     */
+    @Bean(destroyMethod = "close")
+    public ShardRegistry shardRegistry(Environment environment,
+                                       EntityManagerFactoryBuilder builder,
+                                       JpaProperties jpaProperties,
+                                       HibernateProperties hibernateProperties,
+                                       @Value("${app.sharding.timeout:30s}") Duration timeout) {
+        List<HikariConfig> configs = Binder.get(environment)
+                .bind(PREFIX, Bindable.listOf(HikariConfig.class))
+                .orElseThrow(() -> new IllegalStateException(PREFIX + " is not configured"));
+        Map<String, Object> properties = hibernateProperties.determineHibernateProperties(
+                jpaProperties.getProperties(), new HibernateSettings());
+        // 2차 캐시의 CacheManager 는 기본 EntityManagerFactory 전용이다. (SecondLevelCacheConfig)
+        properties.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, false);
+
+        List<Shard> shards = new ArrayList<>(configs.size());
+        try {
+            for (int index = 0; index < configs.size(); index++) {
+                shards.add(shard(index, configs.get(index), builder, properties));
+            }
+            return new ShardRegistry(shards, timeout);
+        } catch (RuntimeException e) {
+            shards.forEach(Shard::close);
+            throw e;
+        }
+    }
+
+    @Bean
+    public ShardedMemberRepository shardedMemberRepository(ShardRegistry shardRegistry) {
+        return new ShardedMemberRepository(shardRegistry);
+    }
+
+    private static Shard shard(int index, HikariConfig config, EntityManagerFactoryBuilder builder,
+                               Map<String, Object> properties) {
+        if (config.getPoolName() == null) {
+            config.setPoolName("shard" + index);
+        }
+        HikariDataSource dataSource = new HikariDataSource(config);
+        try {
+            LocalContainerEntityManagerFactoryBean factoryBean = builder
+                    .dataSource(dataSource)
+                    .packages(Member.class)
+                    .persistenceUnit("shard" + index)
+                    .properties(properties)
+                    .build();
+            factoryBean.afterPropertiesSet();
+            // 백그라운드 부트스트랩이어도 스키마가 만들어질 때까지 기다린다.
+            factoryBean.getNativeEntityManagerFactory();
+            EntityManagerFactory entityManagerFactory = factoryBean.getObject();
+            restartSequences(index, dataSource);
+            return new Shard(index, dataSource, entityManagerFactory);
+        } catch (RuntimeException e) {
+            dataSource.close();
+            throw e;
+        }
+    }
+
+    /**
+     * 빈 샤드의 시퀀스를 샤드 id 범위에서 시작하게 한다.
+     * pooled optimizer 는 첫 값에서 allocationSize - 1 을 뺀 값부터 쓰므로 여유를 둔다.
+     */
+    private static void restartSequences(int index, HikariDataSource dataSource) {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        Long rows = jdbcTemplate.queryForObject(
+                "select (select count(*) from member) + (select count(*) from team)", Long.class);
+        if (rows == null || rows > 0) {
+            return;
+        }
+        long start = Shard.idBase(index) + 1000;
+        jdbcTemplate.execute("alter sequence member_seq restart with " + start);
+        jdbcTemplate.execute("alter sequence team_seq restart with " + start);
+    }
+}
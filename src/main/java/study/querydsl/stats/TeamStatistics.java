@@ -0,0 +1,35 @@
+package study.querydsl.stats;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * 팀 하나의 회원 통계 (불변), 회원이 없으면 minAge/maxAge/averageAge 는 null
+ */
+@Getter
+@ToString
+@EqualsAndHashCode
+public class TeamStatistics {
+    private final Long teamId;
+    private final long memberCount;
+    private final long ageSum;
+    private final Integer minAge;
+    private final Integer maxAge;
+
+    public TeamStatistics(Long teamId, long memberCount, long ageSum, Integer minAge, Integer maxAge) {
+        this.teamId = teamId;
+        this.memberCount = memberCount;
+        this.ageSum = ageSum;
+        this.minAge = minAge;
+        this.maxAge = maxAge;
+    }
+
+    public static TeamStatistics empty(Long teamId) {
+        return new TeamStatistics(teamId, 0, 0, null, null);
+    }
+
+    public Double getAverageAge() {
+        return memberCount == 0 ? null : (double) ageSum / memberCount;
+    }
+}
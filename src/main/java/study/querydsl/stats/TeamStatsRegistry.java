@@ -0,0 +1,363 @@
+package study.querydsl.stats;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import lombok.EqualsAndHashCode;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.entity.Member;
+import study.querydsl.event.EntityCommitEvent;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import static study.querydsl.entity.QMember.member;
+
+/**
+ * 팀별 회원 통계(회원 수, 나이 합/최소/최대)를 메모리에 유지한다.
+ * group by 쿼리 대신, 커밋된 회원 추가/삭제/나이 변경/팀 변경 이벤트로 해당 팀 값만 갱신한다.
+ *
+ * - 조회 : 팀마다 미리 만들어 둔 불변 스냅샷을 읽으므로 O(1), 락 없음
+ * - 갱신 : 팀 단위로만 동기화 (팀이 다르면 서로 막지 않는다)
+ * - 최소/최대 : 삭제가 있어도 정확하도록 팀별 나이 -> 인원 수 를 정렬된 맵으로 유지한다.
+ *
+ * 벌크 연산처럼 이벤트가 오지 않는 변경 후에는 rebuild() 로 DB 에서 다시 만든다.
+ * 커밋 이벤트는 커밋한 요청 스레드에서 처리되므로, 이벤트 처리 중에는 DB 를 조회하지 않는다.
+ * (이전 상태가 없는 UPDATE 는 별도 스레드에서 rebuild 한다)
+ */
+@Slf4j
+@Component
+public class TeamStatsRegistry {
+
+    private static final String TEAM = "team";
+    private static final String AGE = "age";
+
+    private static final int IN_CHUNK = 1000;
+
+    private final JPAQueryFactory queryFactory;
+    private final TransactionTemplate snapshotTransaction;
+    private final Map<Long, TeamAggregate> aggregates = new ConcurrentHashMap<>();
+    private final ReadWriteLock rebuildLock = new ReentrantReadWriteLock();
+    private final Object rebuildMonitor = new Object();
+    private volatile Map<Long, MemberState> changedDuringRebuild;
+    private final ExecutorService rebuilder;
+    private final AtomicBoolean rebuildScheduled = new AtomicBoolean();
+
+    public TeamStatsRegistry(JPAQueryFactory queryFactory, PlatformTransactionManager transactionManager) {
+        this.queryFactory = queryFactory;
+        this.snapshotTransaction = transactionManager == null ? null : new TransactionTemplate(transactionManager);
+        if (snapshotTransaction != null) {
+            // 그룹 집계와 회원별 조회가 같은 스냅샷을 봐야 한다. (읽기 전용이면 replica 로 갈 수 있으므로 지정하지 않는다)
+            snapshotTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+            snapshotTransaction.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        }
+        this.rebuilder = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "team-stats-rebuild");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public TeamStatistics get(Long teamId) {
+        TeamAggregate aggregate = aggregates.get(teamId);
+        return aggregate == null ? TeamStatistics.empty(teamId) : aggregate.snapshot;
+    }
+
+    public Map<Long, TeamStatistics> getAll() {
+        Map<Long, TeamStatistics> all = new HashMap<>();
+        aggregates.forEach((teamId, aggregate) -> {
+            if (aggregate.snapshot.getMemberCount() > 0) {
+                all.put(teamId, aggregate.snapshot);
+            }
+        });
+        return all;
+    }
+
+    @EventListener
+    public void onCommit(EntityCommitEvent event) {
+        if (!event.isFor(Member.class)) {
+            return;
+        }
+
+        rebuildLock.readLock().lock();
+        try {
+            Map<Long, MemberState> changed = changedDuringRebuild;
+            if (changed != null) {
+                changed.put((Long) event.getId(), MemberState.after(event));
+            }
+            if (event.getKind() == EntityCommitEvent.Kind.UPDATE && !event.hasOldState()) {
+                log.warn("member {} updated without previous state, rebuilding team statistics", event.getId());
+                requestRebuild();
+                return;
+            }
+            apply(aggregates, event);
+        } finally {
+            rebuildLock.readLock().unlock();
+        }
+    }
+
+    private void apply(Map<Long, TeamAggregate> target, EntityCommitEvent event) {
+        switch (event.getKind()) {
+            case INSERT:
+                add(target, (Long) event.newValue(TEAM), (Integer) event.newValue(AGE));
+                break;
+            case DELETE:
+                remove(target, (Long) event.oldValue(TEAM), (Integer) event.oldValue(AGE));
+                break;
+            case UPDATE:
+                if (event.changed(TEAM) || event.changed(AGE)) {
+                    remove(target, (Long) event.oldValue(TEAM), (Integer) event.oldValue(AGE));
+                    add(target, (Long) event.newValue(TEAM), (Integer) event.newValue(AGE));
+                }
+                break;
+        }
+    }
+
+    private static void add(Map<Long, TeamAggregate> target, Long teamId, Integer age) {
+        if (teamId != null && age != null) {
+            target.computeIfAbsent(teamId, TeamAggregate::new).add(age);
+        }
+    }
+
+    private static void remove(Map<Long, TeamAggregate> target, Long teamId, Integer age) {
+        if (teamId != null && age != null) {
+            target.computeIfAbsent(teamId, TeamAggregate::new).remove(age);
+        }
+    }
+
+    /**
+     * DB 의 회원 테이블에서 통계를 다시 만든다. (팀별 나이 분포만 조회하므로 결과 행 수는 팀 수 x 나이 종류)
+     *
+     * 조회는 락 없이 하고, 그동안 커밋된 회원 변경은 회원별 마지막 상태로 모아 둔다.
+     * 조회 결과에 그 변경이 이미 들어 있는지는 이벤트 도착 순서로 알 수 없으므로,
+     * 같은 스냅샷(REPEATABLE READ 트랜잭션)에서 모아 둔 회원들의 상태를 다시 읽어 "스냅샷 상태 -> 마지막 상태" 차이만 반영한다.
+     * 이미 결과에 있는 변경은 차이가 없어서 두 번 반영되지 않고, 결과 이후의 변경은 빠지지 않는다.
+     * 쓰기 락은 마지막에 남은 변경을 맞추고 교체하는 동안만 잡는다.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        synchronized (rebuildMonitor) {
+            rebuildLock.writeLock().lock();
+            try {
+                changedDuringRebuild = new ConcurrentHashMap<>();
+            } finally {
+                rebuildLock.writeLock().unlock();
+            }
+
+            try {
+                int teams = snapshotTransaction.execute(status -> {
+                    Map<Long, TeamAggregate> rebuilt = load();
+                    Map<Long, MemberState> reconciled = new HashMap<>();
+                    reconcile(rebuilt, reconciled, new HashMap<>(changedDuringRebuild));
+
+                    rebuildLock.writeLock().lock();
+                    try {
+                        reconcile(rebuilt, reconciled, changedDuringRebuild);
+                        aggregates.clear();
+                        aggregates.putAll(rebuilt);
+                        changedDuringRebuild = null;
+                    } finally {
+                        rebuildLock.writeLock().unlock();
+                    }
+                    return rebuilt.size();
+                });
+                log.info("team statistics rebuilt for {} teams", teams);
+            } finally {
+                changedDuringRebuild = null;
+            }
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        rebuilder.shutdownNow();
+    }
+
+    /**
+     * 커밋 이벤트 처리 중에는 DB 를 조회하지 않도록 별도 스레드에서 rebuild 한다. (밀린 요청은 한 번으로 합친다)
+     */
+    private void requestRebuild() {
+        if (rebuildScheduled.compareAndSet(false, true)) {
+            rebuilder.execute(() -> {
+                rebuildScheduled.set(false);
+                try {
+                    rebuild();
+                } catch (RuntimeException e) {
+                    log.warn("team statistics rebuild failed", e);
+                }
+            });
+        }
+    }
+
+    private Map<Long, TeamAggregate> load() {
+        List<Tuple> rows = queryFactory
+                .select(member.team.id, member.age, member.count())
+                .from(member)
+                .where(member.team.isNotNull())
+                .groupBy(member.team.id, member.age)
+                .fetch();
+
+        Map<Long, TeamAggregate> rebuilt = new HashMap<>();
+        for (Tuple row : rows) {
+            rebuilt.computeIfAbsent(row.get(member.team.id), TeamAggregate::new)
+                    .add(row.get(member.age), row.get(member.count()));
+        }
+        return rebuilt;
+    }
+
+    /**
+     * changed 의 회원마다 rebuilt 에 반영된 상태(처음에는 스냅샷 상태)를 빼고 마지막 상태를 더한다.
+     * @param reconciled 회원 id -> rebuilt 에 반영된 상태, 여러 번 호출해도 차이만 반영되도록 갱신한다.
+     */
+    private void reconcile(Map<Long, TeamAggregate> rebuilt, Map<Long, MemberState> reconciled,
+                           Map<Long, MemberState> changed) {
+        List<Long> unseen = new ArrayList<>();
+        for (Long memberId : changed.keySet()) {
+            if (!reconciled.containsKey(memberId)) {
+                unseen.add(memberId);
+            }
+        }
+        for (int from = 0; from < unseen.size(); from += IN_CHUNK) {
+            List<Long> ids = unseen.subList(from, Math.min(from + IN_CHUNK, unseen.size()));
+            ids.forEach(id -> reconciled.put(id, MemberState.ABSENT));
+            queryFactory
+                    .select(member.id, member.team.id, member.age)
+                    .from(member)
+                    .where(member.id.in(ids))
+                    .fetch()
+                    .forEach(row -> reconciled.put(row.get(member.id),
+                            new MemberState(row.get(member.team.id), row.get(member.age))));
+        }
+
+        changed.forEach((memberId, latest) -> {
+            MemberState applied = reconciled.get(memberId);
+            if (!applied.equals(latest)) {
+                remove(rebuilt, applied.teamId, applied.age);
+                add(rebuilt, latest.teamId, latest.age);
+                reconciled.put(memberId, latest);
+            }
+        });
+    }
+
+    /**
+     * 메모리 통계와 DB group by 결과를 비교한다.
+     * @return 일치하지 않는 팀의 설명, 모두 일치하면 빈 목록
+     */
+    public List<String> verify() {
+        List<Tuple> rows = queryFactory
+                .select(member.team.id, member.count(), member.age.sum(), member.age.min(), member.age.max())
+                .from(member)
+                .where(member.team.isNotNull())
+                .groupBy(member.team.id)
+                .fetch();
+
+        Map<Long, TeamStatistics> expected = new HashMap<>();
+        for (Tuple row : rows) {
+            Long teamId = row.get(member.team.id);
+            expected.put(teamId, new TeamStatistics(teamId,
+                    row.get(1, Number.class).longValue(),
+                    row.get(2, Number.class).longValue(),
+                    row.get(3, Number.class).intValue(),
+                    row.get(4, Number.class).intValue()));
+        }
+
+        List<String> mismatches = new ArrayList<>();
+        Map<Long, TeamStatistics> actual = getAll();
+        expected.forEach((teamId, stats) -> {
+            if (!Objects.equals(stats, actual.get(teamId))) {
+                mismatches.add("team " + teamId + ": expected " + stats + " but was " + actual.get(teamId));
+            }
+        });
+        actual.forEach((teamId, stats) -> {
+            if (!expected.containsKey(teamId)) {
+                mismatches.add("team " + teamId + ": expected no members but was " + stats);
+            }
+        });
+        return mismatches;
+    }
+
+    /**
+     * 회원 한 명이 통계에 기여하는 값 (팀, 나이), 회원이 없으면 ABSENT
+     */
+    @EqualsAndHashCode
+    private static final class MemberState {
+        private static final MemberState ABSENT = new MemberState(null, null);
+
+        private final Long teamId;
+        private final Integer age;
+
+        private MemberState(Long teamId, Integer age) {
+            this.teamId = teamId;
+            this.age = age;
+        }
+
+        private static MemberState after(EntityCommitEvent event) {
+            if (event.getKind() == EntityCommitEvent.Kind.DELETE) {
+                return ABSENT;
+            }
+            return new MemberState((Long) event.newValue(TEAM), (Integer) event.newValue(AGE));
+        }
+    }
+
+    private static final class TeamAggregate {
+        private final Long teamId;
+        private final TreeMap<Integer, Long> ageCounts = new TreeMap<>();
+        private long count;
+        private long sum;
+        private volatile TeamStatistics snapshot;
+
+        private TeamAggregate(Long teamId) {
+            this.teamId = teamId;
+            this.snapshot = TeamStatistics.empty(teamId);
+        }
+
+        private synchronized void add(int age) {
+            add(age, 1);
+        }
+
+        private synchronized void add(int age, long members) {
+            ageCounts.merge(age, members, Long::sum);
+            count += members;
+            sum += (long) age * members;
+            publish();
+        }
+
+        private synchronized void remove(int age) {
+            Long members = ageCounts.get(age);
+            if (members == null) {
+                log.warn("team {} has no member aged {} to remove, statistics may be stale", teamId, age);
+                return;
+            }
+            if (members == 1) {
+                ageCounts.remove(age);
+            } else {
+                ageCounts.put(age, members - 1);
+            }
+            count--;
+            sum -= age;
+            publish();
+        }
+
+        private void publish() {
+            snapshot = count == 0
+                    ? TeamStatistics.empty(teamId)
+                    : new TeamStatistics(teamId, count, sum, ageCounts.firstKey(), ageCounts.lastKey());
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package study.querydsl.transform;
+
+import com.querydsl.core.types.Expression;
+
+import java.util.List;
+
+/**
+ * 정렬된 조인 결과를 한 번에 묶는 ResultTransformer 모음
+ *
+ * <pre>
+ * List&lt;TeamMembersDto&gt; teams = queryFactory
+ *         .from(team)
+ *         .leftJoin(team.members, member)
+ *         .orderBy(team.id.asc(), member.id.asc())
+ *         .transform(SortedGroupBy.nested(team.id, team.name,
+ *                 member.id, new QMemberDto(member.id, member.username, member.age),
+ *                 TeamMembersDto::new));
+ * </pre>
+ *
+ * GroupBy 와 달리 행이 그룹 키로 정렬되어 있다고 가정한다. (orderBy 의 첫 키가 그룹 키)
+ */
+public final class SortedGroupBy {
+
+    private static final int DEFAULT_GROUPS = 16;
+    private static final int DEFAULT_CHILDREN = 4;
+
+    private SortedGroupBy() {
+    }
+
+    /**
+     * 부모 + 자식 목록, childId 가 null 인 행(left join 으로 자식이 없는 부모)은 자식을 만들지 않는다.
+     */
+    public static <K, H, C, R> SortedGroupTransformer<K, H, C, R> nested(Expression<K> key, Expression<H> head,
+                                                                        Expression<?> childId, Expression<C> child,
+                                                                        GroupFactory<K, H, C, R> factory) {
+        return new SortedGroupTransformer<>(key, head, childId, child, factory, DEFAULT_GROUPS, DEFAULT_CHILDREN);
+    }
+
+    /**
+     * 키 -> 값 목록
+     */
+    public static <K, V> SortedMultimapTransformer<K, V> multimap(Expression<K> key, Expression<V> value) {
+        return new SortedMultimapTransformer<>(key, value, DEFAULT_GROUPS, DEFAULT_CHILDREN);
+    }
+
+    @FunctionalInterface
+    public interface GroupFactory<K, H, C, R> {
+        R create(K key, H head, List<C> children);
+    }
+}
@@ -0,0 +1,85 @@
+package study.querydsl.transform;
+
+import com.mysema.commons.lang.CloseableIterator;
+import com.querydsl.core.FetchableQuery;
+import com.querydsl.core.ResultTransformer;
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.Expression;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * 그룹 키 순서로 정렬된 조인 행을 한 번 훑으면서 "부모 + 자식 목록" DTO 를 만든다.
+ *
+ * GroupBy.groupBy(key).list(...) 는 그룹마다 GroupImpl 과 컬럼별 GroupCollector 를 만들고, 키로 LinkedHashMap 을 찾는다.
+ * 여기서는 키가 바뀌는 행에서 직전 그룹을 끝내므로 맵도 그룹 객체도 만들지 않고,
+ * 자식 목록은 expectedChildren 크기로 한 번에 잡는다. (행은 scroll 로 읽으므로 전체 결과를 먼저 모으지 않는다)
+ *
+ * 쿼리는 반드시 key 로 정렬해야 한다. 같은 키가 떨어져 나오면 그룹이 둘로 나뉜다.
+ *
+ * @param <K> 그룹 키 (예: team.id)
+ * @param <H> 그룹의 첫 행에서 한 번만 읽는 값 (예: team.name, 팀 DTO 프로젝션)
+ * @param <C> 행마다 하나씩 모으는 자식 (예: QMemberDto)
+ * @param <R> 결과 DTO
+ */
+public final class SortedGroupTransformer<K, H, C, R> implements ResultTransformer<List<R>> {
+
+    private final Expression<K> key;
+    private final Expression<H> head;
+    private final Expression<?> childId;
+    private final Expression<C> child;
+    private final SortedGroupBy.GroupFactory<K, H, C, R> factory;
+    private final int expectedGroups;
+    private final int expectedChildren;
+
+    SortedGroupTransformer(Expression<K> key, Expression<H> head, Expression<?> childId, Expression<C> child,
+                           SortedGroupBy.GroupFactory<K, H, C, R> factory,
+                           int expectedGroups, int expectedChildren) {
+        this.key = key;
+        this.head = head;
+        this.childId = childId;
+        this.child = child;
+        this.factory = factory;
+        this.expectedGroups = expectedGroups;
+        this.expectedChildren = expectedChildren;
+    }
+
+    /**
+     * 결과 목록과 그룹별 자식 목록의 초기 크기 (페이지 크기, 평균 자식 수를 알 때)
+     */
+    public SortedGroupTransformer<K, H, C, R> presized(int expectedGroups, int expectedChildren) {
+        return new SortedGroupTransformer<>(key, head, childId, child, factory, expectedGroups, expectedChildren);
+    }
+
+    @Override
+    public List<R> transform(FetchableQuery<?, ?> query) {
+        List<R> groups = new ArrayList<>(expectedGroups);
+        try (CloseableIterator<Tuple> rows = query.select(key, head, childId, child).iterate()) {
+            K currentKey = null;
+            H currentHead = null;
+            List<C> children = null;
+            while (rows.hasNext()) {
+                Tuple row = rows.next();
+                K rowKey = row.get(0, key.getType());
+                if (children == null || !Objects.equals(rowKey, currentKey)) {
+                    if (children != null) {
+                        groups.add(factory.create(currentKey, currentHead, children));
+                    }
+                    currentKey = rowKey;
+                    currentHead = row.get(1, head.getType());
+                    children = new ArrayList<>(expectedChildren);
+                }
+                // left join 으로 자식이 없는 그룹은 자식 id 가 null 인 행 하나로 나온다.
+                if (row.get(2, Object.class) != null) {
+                    children.add(row.get(3, child.getType()));
+                }
+            }
+            if (children != null) {
+                groups.add(factory.create(currentKey, currentHead, children));
+            }
+        }
+        return groups;
+    }
+}
@@ -0,0 +1,63 @@
+package study.querydsl.transform;
+
+import com.mysema.commons.lang.CloseableIterator;
+import com.querydsl.core.FetchableQuery;
+import com.querydsl.core.ResultTransformer;
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.Expression;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * 키 순서로 정렬된 행을 한 번 훑으면서 키 -> 값 목록 맵을 만든다. (GroupBy.groupBy(key).as(list(value)) 대체)
+ * 키가 바뀔 때만 맵에 넣으므로 행마다 맵을 찾지 않는다. 쿼리는 반드시 key 로 정렬해야 한다.
+ */
+public final class SortedMultimapTransformer<K, V> implements ResultTransformer<Map<K, List<V>>> {
+
+    private final Expression<K> key;
+    private final Expression<V> value;
+    private final int expectedKeys;
+    private final int expectedValues;
+
+    SortedMultimapTransformer(Expression<K> key, Expression<V> value, int expectedKeys, int expectedValues) {
+        this.key = key;
+        this.value = value;
+        this.expectedKeys = expectedKeys;
+        this.expectedValues = expectedValues;
+    }
+
+    /**
+     * 맵과 키별 목록의 초기 크기 (in 절로 조회한 키 수, 평균 값 수를 알 때)
+     */
+    public SortedMultimapTransformer<K, V> presized(int expectedKeys, int expectedValues) {
+        return new SortedMultimapTransformer<>(key, value, expectedKeys, expectedValues);
+    }
+
+    @Override
+    public Map<K, List<V>> transform(FetchableQuery<?, ?> query) {
+        Map<K, List<V>> groups = new LinkedHashMap<>(capacityOf(expectedKeys));
+        try (CloseableIterator<Tuple> rows = query.select(key, value).iterate()) {
+            K currentKey = null;
+            List<V> values = null;
+            while (rows.hasNext()) {
+                Tuple row = rows.next();
+                K rowKey = row.get(0, key.getType());
+                if (values == null || !Objects.equals(rowKey, currentKey)) {
+                    currentKey = rowKey;
+                    values = new ArrayList<>(expectedValues);
+                    groups.put(rowKey, values);
+                }
+                values.add(row.get(1, value.getType()));
+            }
+        }
+        return groups;
+    }
+
+    private static int capacityOf(int expectedSize) {
+        return (int) Math.ceil(expectedSize / 0.75);
+    }
+}
@@ -0,0 +1,68 @@
+package study.querydsl;
+
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * prod 프로필로 시작해서 /hello 첫 응답을 받기까지의 시간(time-to-first-request)을 잰다.
+ * 기준 시간은 -Dstartup.budget-ms 로 바꿀 수 있다. (기본 10초)
+ *
+ * prod 는 ddl-auto: validate 이므로, 같은 인메모리 DB 에 기본 프로필로 스키마를 먼저 만든다.
+ * (같은 JVM 이라 클래스 로딩 일부가 미리 되어 있으므로 실제 콜드 스타트보다 조금 빠르게 나온다)
+ */
+class StartupTimeTest {
+
+    private static final Logger log = LoggerFactory.getLogger(StartupTimeTest.class);
+
+    // application.yml 보다 우선하도록 커맨드라인 인자로 넘긴다.
+    private static final String DB_URL_ARG = "--spring.datasource.url=jdbc:h2:mem:startup;DB_CLOSE_DELAY=-1";
+    private static final long BUDGET_MILLIS = Long.getLong("startup.budget-ms", 10_000);
+
+    @Test
+    void timeToFirstRequest() throws IOException, InterruptedException {
+        try (ConfigurableApplicationContext schema = application()
+                .web(WebApplicationType.NONE)
+                .run(DB_URL_ARG, "--spring.jpa.hibernate.ddl-auto=create")) {
+            assertTrue(schema.isActive());
+        }
+
+        long start = System.nanoTime();
+        try (ConfigurableApplicationContext context = application()
+                .profiles("prod")
+                .run(DB_URL_ARG, "--server.port=0")) {
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+
+            HttpResponse<String> response = HttpClient.newHttpClient().send(
+                    HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/hello")).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            long elapsedMillis = Duration.ofNanos(System.nanoTime() - start).toMillis();
+
+            log.info("time to first request: {} ms (budget {} ms)", elapsedMillis, BUDGET_MILLIS);
+            assertEquals(response.statusCode(), 200);
+            assertEquals(response.body(), "ok");
+            assertThat(elapsedMillis)
+                    .as("time to first request in ms (budget %d ms)", BUDGET_MILLIS)
+                    .isLessThan(BUDGET_MILLIS);
+        }
+    }
+
+    private static SpringApplicationBuilder application() {
+        return new SpringApplicationBuilder(QuerydslApplication.class)
+                .logStartupInfo(false);
+    }
+}
@@ -0,0 +1,150 @@
+package study.querydsl.cache;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.metrics.StatementScope;
+import study.querydsl.repository.MemberQueryRepository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.*;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * 캐시 무효화는 커밋 이벤트로 동작하므로 테스트 트랜잭션(롤백) 없이 실제로 커밋한다.
+ */
+@SpringBootTest
+class QueryResultCacheTest {
+
+    @PersistenceContext
+    EntityManager em;
+
+    @Autowired
+    JPAQueryFactory queryFactory;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Autowired
+    QueryResultCache queryResultCache;
+
+    @Autowired
+    MemberQueryRepository memberQueryRepository;
+
+    MemberSearchCondition condition = new MemberSearchCondition();
+
+    @BeforeEach
+    void before() {
+        queryResultCache.clear();
+        condition.setUsername("cacheMember");
+        transactionTemplate.executeWithoutResult(status -> {
+            Team cacheTeam = new Team("cacheTeam");
+            em.persist(cacheTeam);
+            em.persist(new Member("cacheMember", 10, cacheTeam));
+        });
+    }
+
+    @AfterEach
+    void after() {
+        transactionTemplate.executeWithoutResult(status -> {
+            queryFactory.delete(member).where(member.username.startsWith("cache")).execute();
+            queryFactory.delete(team).where(team.name.startsWith("cache")).execute();
+        });
+        queryResultCache.clear();
+    }
+
+    @Test
+    void secondCallHitsCache() {
+        List<MemberTeamDto> first = memberQueryRepository.searchCached(condition);
+
+        try (StatementScope scope = StatementScope.open("cached")) {
+            List<MemberTeamDto> second = memberQueryRepository.searchCached(condition);
+            assertEquals(scope.getStatementCount(), 0);
+            assertSame(second, first);
+        }
+
+        QueryCacheStats stats = queryResultCache.stats();
+        assertEquals(stats.getMisses(), 1L);
+        assertEquals(stats.getHits(), 1L);
+    }
+
+    @Test
+    void differentBindingsAreDifferentEntries() {
+        memberQueryRepository.searchCached(condition);
+
+        MemberSearchCondition other = new MemberSearchCondition();
+        other.setUsername("unknown");
+        assertThat(memberQueryRepository.searchCached(other)).isEmpty();
+
+        assertEquals(queryResultCache.stats().getMisses(), 2L);
+        assertEquals(queryResultCache.stats().getSize(), 2);
+    }
+
+    /**
+     * 변경 감지로 커밋된 회원 수정은 회원을 읽는 결과를 무효화한다.
+     */
+    @Test
+    void committedUpdateInvalidates() {
+        assertEquals(memberQueryRepository.searchCached(condition).get(0).getAge(), 10);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            Member found = queryFactory.selectFrom(member).where(member.username.eq("cacheMember")).fetchOne();
+            found.setAge(20);
+        });
+
+        assertEquals(memberQueryRepository.searchCached(condition).get(0).getAge(), 20);
+        assertEquals(queryResultCache.stats().getMisses(), 2L);
+    }
+
+    /**
+     * 팀 이름만 바뀌어도 team 을 조인하는 결과는 무효화된다.
+     */
+    @Test
+    void joinedEntityUpdateInvalidates() {
+        memberQueryRepository.searchCached(condition);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            Team found = queryFactory.selectFrom(team).where(team.name.eq("cacheTeam")).fetchOne();
+            found.setName("cacheTeamRenamed");
+        });
+
+        assertEquals(memberQueryRepository.searchCached(condition).get(0).getTeamName(), "cacheTeamRenamed");
+    }
+
+    @Test
+    void bulkUpdateInvalidates() {
+        memberQueryRepository.searchCached(condition);
+
+        transactionTemplate.executeWithoutResult(status -> queryResultCache.update(member)
+                .set(member.age, 30)
+                .where(member.username.eq("cacheMember"))
+                .execute());
+
+        assertEquals(memberQueryRepository.searchCached(condition).get(0).getAge(), 30);
+        assertThat(queryResultCache.stats().getInvalidations()).isGreaterThanOrEqualTo(1L);
+    }
+
+    @Test
+    void entityProjectionIsNotCached() {
+        List<Member> result = queryResultCache.fetch(queryFactory
+                .selectFrom(member)
+                .where(member.username.eq("cacheMember")));
+
+        assertEquals(result.size(), 1);
+        assertEquals(queryResultCache.stats().getBypasses(), 1L);
+        assertEquals(queryResultCache.stats().getSize(), 0);
+    }
+}
@@ -0,0 +1,175 @@
+package study.querydsl.cache;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.metrics.StatementScope;
+import study.querydsl.service.MemberBulkWriter;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PersistenceContext;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * 2차 캐시는 커밋된 데이터만 담으므로 테스트 트랜잭션 없이 실행하고, 만든 데이터는 직접 지운다.
+ */
+@SpringBootTest
+class SecondLevelCacheTest {
+
+    @PersistenceContext
+    EntityManager em;
+
+    @Autowired
+    EntityManagerFactory emf;
+
+    @Autowired
+    JPAQueryFactory queryFactory;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Autowired
+    MemberBulkWriter memberBulkWriter;
+
+    @Autowired
+    QueryResultCache queryResultCache;
+
+    Statistics statistics;
+    Long teamId;
+    List<Long> memberIds;
+
+    @BeforeEach
+    void before() {
+        transactionTemplate.executeWithoutResult(status -> {
+            Team l2Team = new Team("l2Team");
+            em.persist(l2Team);
+            Member member1 = new Member("l2Member1", 10, l2Team);
+            Member member2 = new Member("l2Member2", 20, l2Team);
+            Member member3 = new Member("l2Member3", 30, l2Team);
+            em.persist(member1);
+            em.persist(member2);
+            em.persist(member3);
+            teamId = l2Team.getId();
+            memberIds = Arrays.asList(member1.getId(), member2.getId(), member3.getId());
+        });
+        emf.getCache().evictAll();
+        statistics = emf.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    /**
+     * 회원 이름 인덱스, 팀 통계, 쿼리 결과 캐시도 같이 맞추도록 MemberBulkWriter 로 지운다.
+     */
+    @AfterEach
+    void after() {
+        memberBulkWriter.delete(member.username.startsWith("l2Member"));
+        transactionTemplate.executeWithoutResult(status ->
+                queryResultCache.delete(team).where(team.name.startsWith("l2Team")).execute());
+    }
+
+    /**
+     * 처음 조회한 팀은 캐시에 들어가고, 다음 영속성 컨텍스트에서는 SQL 없이 캐시에서 읽는다.
+     */
+    @Test
+    void teamIsServedFromCacheInNewPersistenceContext() {
+        assertEquals(findTeamName(), 1);
+        assertEquals(statistics.getSecondLevelCacheMissCount(), 1);
+        assertEquals(statistics.getSecondLevelCachePutCount(), 1);
+
+        assertEquals(findTeamName(), 0);
+        assertEquals(statistics.getSecondLevelCacheHitCount(), 1);
+    }
+
+    /**
+     * member.team 지연 로딩도 캐시에서 채워진다. (회원 조회 1번만 실행)
+     */
+    @Test
+    void lazyTeamIsLoadedFromCache() {
+        findTeamName();
+
+        int statements = transactionTemplate.execute(status -> {
+            try (StatementScope scope = StatementScope.open("lazyTeam")) {
+                List<Member> members = queryFactory
+                        .selectFrom(member)
+                        .where(member.id.in(memberIds))
+                        .fetch();
+                for (Member m : members) {
+                    assertEquals(m.getTeam().getName(), "l2Team");
+                }
+                return scope.getStatementCount();
+            }
+        });
+
+        assertEquals(statements, 1);
+    }
+
+    /**
+     * 엔티티 변경은 커밋 후 캐시에 반영되므로 다음 조회도 SQL 없이 바뀐 값을 본다.
+     */
+    @Test
+    void updateIsWrittenThrough() {
+        findTeamName();
+        transactionTemplate.executeWithoutResult(status -> em.find(Team.class, teamId).setName("l2TeamRenamed"));
+
+        String name = transactionTemplate.execute(status -> {
+            try (StatementScope scope = StatementScope.open("afterUpdate")) {
+                String found = em.find(Team.class, teamId).getName();
+                assertEquals(scope.getStatementCount(), 0);
+                return found;
+            }
+        });
+
+        assertEquals(name, "l2TeamRenamed");
+    }
+
+    /**
+     * in_clause_parameter_padding : in 절 파라미터 3개는 4개로 채워서(마지막 값 반복) 4개일 때와 같은 SQL 이 된다.
+     */
+    @Test
+    void inClauseParametersArePadded() {
+        String sql = transactionTemplate.execute(status -> {
+            try (StatementScope scope = StatementScope.capture("in")) {
+                queryFactory.select(member.username)
+                        .from(member)
+                        .where(member.id.in(memberIds))
+                        .fetch();
+                return scope.getStatements().get(0);
+            }
+        });
+
+        Matcher last = Pattern.compile("\\b" + memberIds.get(2) + "\\b").matcher(sql);
+        int occurrences = 0;
+        while (last.find()) {
+            occurrences++;
+        }
+        assertEquals(occurrences, 2);
+    }
+
+    /**
+     * @return 실행된 SQL 수
+     */
+    private int findTeamName() {
+        return transactionTemplate.execute(status -> {
+            try (StatementScope scope = StatementScope.open("findTeam")) {
+                assertEquals(em.find(Team.class, teamId).getName(), "l2Team");
+                return scope.getStatementCount();
+            }
+        });
+    }
+}
@@ -0,0 +1,108 @@
+package study.querydsl.datasource;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.repository.MemberQueryRepository;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static study.querydsl.entity.QMember.member;
+
+/**
+ * primary / replica 를 서로 다른 인메모리 H2 로 띄운다.
+ * 스키마는 primary 에만 만들어지므로 replica 에 복사하고, replica 에만 있는 행으로 어느 쪽에서 읽었는지 확인한다.
+ */
+@SpringBootTest(properties = {
+        "app.datasource.routing.enabled=true",
+        "app.datasource.routing.primary.jdbc-url=jdbc:h2:mem:primary;DB_CLOSE_DELAY=-1",
+        "app.datasource.routing.primary.username=sa",
+        "app.datasource.routing.replica.jdbc-url=jdbc:h2:mem:replica;DB_CLOSE_DELAY=-1",
+        "app.datasource.routing.replica.username=sa"
+})
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ReplicationRoutingDataSourceTest {
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Autowired
+    JPAQueryFactory queryFactory;
+
+    @Autowired
+    ReplicationDataSources pools;
+
+    @Autowired
+    MemberQueryRepository memberQueryRepository;
+
+    JdbcTemplate replica;
+
+    @BeforeAll
+    void copySchema() {
+        JdbcTemplate primary = new JdbcTemplate(pools.getPrimary());
+        replica = new JdbcTemplate(pools.getReplica());
+        for (String sql : primary.queryForList("script nodata", String.class)) {
+            if (!sql.startsWith("--")) {
+                replica.execute(sql);
+            }
+        }
+    }
+
+    @AfterEach
+    void after() {
+        ReadYourWrites.end();
+        replica.update("delete from member");
+    }
+
+    @Test
+    void readOnlyTransactionUsesReplica() {
+        assertEquals(databaseIn(false), "PRIMARY");
+        assertEquals(databaseIn(true), "REPLICA");
+    }
+
+    @Test
+    void queryDslReadsFromReplica() {
+        replica.update("insert into member (member_id, username, age) values (next value for member_seq, 'replicaOnly', 10)");
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsername("replicaOnly");
+
+        assertEquals(memberQueryRepository.search(condition).size(), 1);
+
+        Long onPrimary = transactionTemplate.execute(status -> queryFactory
+                .select(member.count())
+                .from(member)
+                .where(member.username.eq("replicaOnly"))
+                .fetchOne());
+        assertEquals(onPrimary, 0L);
+    }
+
+    /**
+     * 같은 요청에서 쓰기 트랜잭션 이후의 읽기는 primary 로 간다.
+     */
+    @Test
+    void readYourWrites() {
+        ReadYourWrites.begin();
+        assertEquals(databaseIn(true), "REPLICA");
+
+        assertEquals(databaseIn(false), "PRIMARY");
+        assertEquals(databaseIn(true), "PRIMARY");
+
+        ReadYourWrites.end();
+        assertEquals(databaseIn(true), "REPLICA");
+    }
+
+    private String databaseIn(boolean readOnly) {
+        TransactionTemplate template = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        template.setReadOnly(readOnly);
+        return template.execute(status -> jdbcTemplate.queryForObject("select database()", String.class));
+    }
+}
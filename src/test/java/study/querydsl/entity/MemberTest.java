@@ -0,0 +1,87 @@
+package study.querydsl.entity;
+
+import org.hibernate.Hibernate;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PersistenceContext;
+import javax.persistence.PersistenceUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@Transactional
+class MemberTest {
+
+    @PersistenceContext
+    EntityManager em;
+
+    @PersistenceUnit
+    EntityManagerFactory emf;
+
+    /**
+     * 영속 상태의 팀에 회원을 추가해도 team.members 컬렉션을 로딩하지 않는다.
+     */
+    @Test
+    void changeTeamDoesNotInitializeMembers() {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        em.persist(new Member("member1", 10, teamA));
+        em.flush();
+        em.clear();
+
+        Team findTeam = em.find(Team.class, teamA.getId());
+        Member member2 = new Member("member2", 20, findTeam);
+        em.persist(member2);
+
+        assertFalse(emf.getPersistenceUnitUtil().isLoaded(findTeam, "members"));
+        assertFalse(Hibernate.isInitialized(findTeam.getMembers()));
+        assertEquals(member2.getTeam(), findTeam);
+
+        em.flush();
+        em.clear();
+
+        Team reloaded = em.find(Team.class, teamA.getId());
+        assertThat(reloaded.getMembers())
+                .extracting("username")
+                .containsExactlyInAnyOrder("member1", "member2");
+    }
+
+    /**
+     * 팀 프록시에 회원을 붙여도 프록시(팀 조회)도, 컬렉션도 초기화하지 않는다.
+     */
+    @Test
+    void changeTeamWithReferenceDoesNotInitializeProxy() {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        em.flush();
+        em.clear();
+
+        Team reference = em.getReference(Team.class, teamA.getId());
+        Member member1 = new Member("member1", 10, reference);
+        em.persist(member1);
+
+        assertFalse(Hibernate.isInitialized(reference));
+        assertEquals(member1.getTeam().getId(), teamA.getId());
+    }
+
+    /**
+     * 이미 로딩된 컬렉션은 양쪽을 모두 맞춘다.
+     */
+    @Test
+    void changeTeamKeepsLoadedCollectionsInSync() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        Member member1 = new Member("member1", 10, teamA);
+
+        member1.changeTeam(teamB);
+
+        assertThat(teamA.getMembers()).isEmpty();
+        assertThat(teamB.getMembers()).containsExactly(member1);
+        assertEquals(member1.getTeam(), teamB);
+    }
+}
@@ -0,0 +1,35 @@
+package study.querydsl.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatencyHistogramTest {
+
+    /**
+     * 버킷 상한값은 실제 값보다 크거나 같고, 상대 오차는 12.5% 이내
+     */
+    @Test
+    void bucketsBoundRelativeError() {
+        for (long micros = 0; micros < 5_000_000; micros = micros * 3 / 2 + 1) {
+            long upper = LatencyHistogram.upperBoundOf(LatencyHistogram.indexOf(micros));
+            assertThat(upper).isGreaterThanOrEqualTo(micros);
+            assertThat(upper - micros).isLessThanOrEqualTo(micros / 8);
+        }
+    }
+
+    @Test
+    void percentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i);
+        }
+
+        assertEquals(histogram.getCount(), 1000);
+        assertEquals(histogram.getMaxMicros(), 1000);
+        assertThat(histogram.percentileMicros(50)).isBetween(500L, 563L);
+        assertThat(histogram.percentileMicros(99)).isBetween(990L, 1000L);
+        assertEquals(histogram.percentileMicros(100), 1000);
+    }
+}
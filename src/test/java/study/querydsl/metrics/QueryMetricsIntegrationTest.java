@@ -0,0 +1,57 @@
+package study.querydsl.metrics;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.Matchers.contains;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 실제 쿼리 -> p6spy -> QueryMetricsListener -> QueryShapeRegistry -> /metrics/queries 까지 확인한다.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class QueryMetricsIntegrationTest {
+
+    private static final String SQL = "select 'metricsProbe', x from system_range(1, 3)";
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    MockMvc mockMvc;
+
+    /**
+     * 리터럴이 달라도 같은 모양으로 모이고, 실행 횟수와 읽은 행 수가 쌓인다.
+     */
+    @Test
+    void executedQueryShowsUpByShape() throws Exception {
+        mockMvc.perform(delete("/metrics/queries")).andExpect(status().isOk());
+        jdbcTemplate.queryForList(SQL);
+        jdbcTemplate.queryForList(SQL.replace("3", "5"));
+        String shape = SqlShapes.fingerprint(SQL);
+
+        mockMvc.perform(get("/metrics/queries").param("sort", "count").param("limit", "1000"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[?(@.shape == '" + shape + "')].executions", contains(2)))
+                .andExpect(jsonPath("$[?(@.shape == '" + shape + "')].rows", contains(3 + 5)))
+                .andExpect(jsonPath("$[?(@.shape == '" + shape + "')].errors", contains(0)));
+    }
+
+    @Test
+    void limitOutOfRangeIsBadRequest() throws Exception {
+        mockMvc.perform(get("/metrics/queries").param("limit", "-1"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/metrics/queries").param("limit", "0"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/metrics/queries").param("limit", "1001"))
+                .andExpect(status().isBadRequest());
+    }
+}
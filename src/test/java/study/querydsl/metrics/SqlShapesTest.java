@@ -0,0 +1,28 @@
+package study.querydsl.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SqlShapesTest {
+
+    @Test
+    void literalsAndCommentsAreRemoved() {
+        String shape = SqlShapes.normalize("/* select m from Member m */ select member0_.member_id as member_i1_1_\n"
+                + "  from member member0_ where member0_.username='it''s' and member0_.age>=20");
+
+        assertEquals(shape, "select member0_.member_id as member_i1_1_ from member member0_"
+                + " where member0_.username=? and member0_.age>=?");
+    }
+
+    @Test
+    void inListsOfDifferentSizeHaveSameShape() {
+        String two = SqlShapes.fingerprint("select * from member where member_id in (?, ?)");
+        String five = SqlShapes.fingerprint("select * from member where member_id in (?, ?, ?, ?, ?)");
+        String literals = SqlShapes.fingerprint("SELECT * FROM member WHERE member_id IN (1, 2, 3)");
+
+        assertEquals(two, "select * from member where member_id in (?...)");
+        assertEquals(five, two);
+        assertEquals(literals, two);
+    }
+}
@@ -0,0 +1,66 @@
+package study.querydsl.metrics;
+
+import org.junit.jupiter.api.extension.AfterTestExecutionCallback;
+import org.junit.jupiter.api.extension.BeforeTestExecutionCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * 테스트 메서드(또는 클래스)의 @StatementBudget 을 검사하는 JUnit 확장
+ * 테스트 본문(@BeforeEach 제외) 동안 나간 SQL 이 예산을 넘으면 넘은 내용을 실패 메시지에 담아 테스트를 실패시킨다. (action = LOG 면 경고 로그만 남긴다)
+ *
+ * <pre>
+ * &#64;ExtendWith(StatementBudgetExtension.class)
+ * class SomeTest {
+ *     &#64;Test &#64;StatementBudget(maxStatements = 2)
+ *     void teams() { ... }
+ * }
+ * </pre>
+ */
+public class StatementBudgetExtension implements BeforeTestExecutionCallback, AfterTestExecutionCallback {
+
+    private static final Logger log = LoggerFactory.getLogger(StatementBudgetExtension.class);
+
+    private static final ExtensionContext.Namespace NAMESPACE =
+            ExtensionContext.Namespace.create(StatementBudgetExtension.class);
+
+    @Override
+    public void beforeTestExecution(ExtensionContext context) {
+        if (budgetOf(context) != null) {
+            context.getStore(NAMESPACE).put(StatementScope.class, StatementScope.open(context.getDisplayName()));
+        }
+    }
+
+    @Override
+    public void afterTestExecution(ExtensionContext context) {
+        StatementScope scope = context.getStore(NAMESPACE).remove(StatementScope.class, StatementScope.class);
+        if (scope == null) {
+            return;
+        }
+        scope.close();
+
+        StatementBudget budget = budgetOf(context);
+        List<String> violations = scope.violationsOf(budget);
+        if (violations.isEmpty()) {
+            return;
+        }
+        String message = "statement budget exceeded in " + context.getDisplayName() + ": " + String.join(", ", violations);
+        if (budget.action() == StatementBudget.Action.FAIL) {
+            fail(message);
+        }
+        log.warn(message);
+    }
+
+    private static StatementBudget budgetOf(ExtensionContext context) {
+        StatementBudget budget = AnnotatedElementUtils.findMergedAnnotation(
+                context.getRequiredTestMethod(), StatementBudget.class);
+        return budget != null ? budget
+                : AnnotatedElementUtils.findMergedAnnotation(context.getRequiredTestClass(), StatementBudget.class);
+    }
+}
@@ -0,0 +1,94 @@
+package study.querydsl.metrics;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.*;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+@SpringBootTest
+@Transactional
+@ExtendWith(StatementBudgetExtension.class)
+class StatementScopeTest {
+
+    @PersistenceContext
+    EntityManager em;
+
+    @Autowired
+    JPAQueryFactory jpaQueryFactory;
+
+    @BeforeEach
+    void before() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30, teamB));
+        em.persist(new Member("member4", 40, teamB));
+        em.flush();
+        em.clear();
+    }
+
+    /**
+     * 지연 로딩으로 팀에 접근하면 팀 수만큼 같은 모양의 select 가 반복된다. (N+1)
+     */
+    @Test
+    void lazyLoadingIsDetected() {
+        try (StatementScope scope = StatementScope.open("lazy")) {
+            List<Member> members = jpaQueryFactory
+                    .selectFrom(member)
+                    .fetch();
+            for (Member m : members) {
+                m.getTeam().getName();
+            }
+
+            assertEquals(scope.getStatementCount(), 3);
+            Map<String, Integer> repeated = scope.getRepeatedSelects(1);
+            assertEquals(repeated.size(), 1);
+            assertThat(repeated.values()).containsExactly(2);
+            assertThat(scope.violationsOf(Integer.MAX_VALUE, 1)).hasSize(1);
+        }
+    }
+
+    @Test
+    @StatementBudget(maxStatements = 1, action = StatementBudget.Action.FAIL)
+    void fetchJoinStaysWithinBudget() {
+        List<Member> members = jpaQueryFactory
+                .selectFrom(member)
+                .join(member.team, team).fetchJoin()
+                .fetch();
+        for (Member m : members) {
+            m.getTeam().getName();
+        }
+    }
+
+    @Test
+    void nestedScopes() {
+        try (StatementScope outer = StatementScope.open("outer")) {
+            jpaQueryFactory.selectFrom(team).fetch();
+            try (StatementScope inner = StatementScope.open("inner")) {
+                jpaQueryFactory.selectFrom(member).fetch();
+                assertEquals(inner.getStatementCount(), 1);
+            }
+            assertEquals(outer.getStatementCount(), 2);
+        }
+        assertFalse(StatementScope.isActive());
+    }
+}
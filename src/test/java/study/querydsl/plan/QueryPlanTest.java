@@ -0,0 +1,234 @@
+package study.querydsl.plan;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.cache.QueryResultCache;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.Member;
+import study.querydsl.metrics.SqlShapes;
+import study.querydsl.metrics.StatementScope;
+import study.querydsl.paging.KeysetPage;
+import study.querydsl.paging.TotalCountCache;
+import study.querydsl.repository.MemberQueryRepository;
+import study.querydsl.repository.TeamQueryRepository;
+import study.querydsl.service.MemberBulkLoader;
+import study.querydsl.service.MemberBulkWriter;
+import study.querydsl.service.MemberRecord;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * 프로젝트에서 사용하는 쿼리 모양별로 실제 실행된 SQL 을 H2 EXPLAIN 으로 확인한다.
+ * 인덱스를 써야 하는 쿼리가 tableScan 으로 바뀌면 실패한다.
+ *
+ * 실행 계획은 통계에 따라 달라지므로, 팀 20개 x 회원 100명(나이 0 ~ 99)을 커밋하고 ANALYZE 한 뒤 확인한다.
+ */
+@SpringBootTest
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class QueryPlanTest {
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    JPAQueryFactory queryFactory;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Autowired
+    MemberBulkLoader memberBulkLoader;
+
+    @Autowired
+    MemberBulkWriter memberBulkWriter;
+
+    @Autowired
+    MemberQueryRepository memberQueryRepository;
+
+    @Autowired
+    TeamQueryRepository teamQueryRepository;
+
+    @Autowired
+    TotalCountCache totalCountCache;
+
+    @Autowired
+    QueryResultCache queryResultCache;
+
+    @BeforeAll
+    void seed() {
+        memberBulkLoader.load(IntStream.range(0, 2000)
+                .mapToObj(i -> new MemberRecord("planMember" + i, i % 100, "planTeam" + i % 20)));
+        jdbcTemplate.execute("analyze");
+    }
+
+    /**
+     * 회원 이름 인덱스, 팀 통계, 쿼리 결과 캐시도 같이 맞추도록 MemberBulkWriter 로 지운다.
+     */
+    @AfterAll
+    void cleanUp() {
+        memberBulkWriter.delete(member.username.startsWith("planMember"));
+        transactionTemplate.executeWithoutResult(status ->
+                queryResultCache.delete(team).where(team.name.startsWith("planTeam")).execute());
+    }
+
+    @Test
+    void findByUsername() {
+        assertPlans(() -> memberQueryRepository.findByUsername("planMember7"),
+                "IDX_MEMBER_USERNAME");
+    }
+
+    @Test
+    void searchByUsername() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsername("planMember7");
+
+        assertPlans(() -> memberQueryRepository.search(condition),
+                "IDX_MEMBER_USERNAME");
+    }
+
+    @Test
+    void searchByAgeRange() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(10);
+        condition.setAgeLoe(11);
+
+        assertPlans(() -> memberQueryRepository.search(condition),
+                "IDX_MEMBER_AGE_USERNAME_ID");
+    }
+
+    /**
+     * 팀 이름으로 팀을 찾고, team_id 인덱스로 회원을 찾는다.
+     */
+    @Test
+    void searchByTeamName() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("planTeam3");
+
+        assertPlans(() -> memberQueryRepository.search(condition),
+                "IDX_TEAM_NAME", "IDX_MEMBER_TEAM_ID");
+    }
+
+    /**
+     * 팀 페이지 조회는 기본키 순서로 읽고, 회원은 team_id in (...) 으로 인덱스를 탄다.
+     */
+    @Test
+    void teamsWithMembers() {
+        assertPlans(() -> teamQueryRepository.findTeamsWithMembers(PageRequest.of(0, 5)),
+                "IDX_MEMBER_TEAM_ID");
+    }
+
+    /**
+     * 키셋 정렬(age desc, username asc nulls last, id)과 같은 순서의 인덱스를 따라 읽으므로 정렬하지 않는다.
+     */
+    @Test
+    void keysetFirstPage() {
+        String plans = assertPlans(() -> memberQueryRepository.findMembers(null, null, 20),
+                "IDX_MEMBER_AGE_USERNAME_ID");
+        assertThat(plans).contains("INDEX SORTED");
+    }
+
+    @Test
+    void keysetNextPage() {
+        KeysetPage<Member> first = memberQueryRepository.findMembers(null, null, 20);
+
+        String plans = assertPlans(() -> memberQueryRepository.findMembers(null, first.getNextCursor(), 20),
+                "IDX_MEMBER_AGE_USERNAME_ID");
+        assertThat(plans).contains("INDEX SORTED");
+    }
+
+    /**
+     * 컨텐츠 쿼리와 count 쿼리 모두 확인한다. (첫 페이지가 가득 차서 count 쿼리가 실행된다)
+     */
+    @Test
+    void pageWithCount() {
+        totalCountCache.clear();
+
+        String plans = assertPlans(() -> memberQueryRepository.findPage(member.age.between(10, 11), PageRequest.of(0, 10)),
+                "IDX_MEMBER_AGE_USERNAME_ID");
+        assertThat(plans).contains("COUNT(");
+    }
+
+    /**
+     * 평균을 구하는 서브쿼리는 모든 행을 읽어야 하므로 tableScan 이 한 번 있고,
+     * 바깥 쿼리는 평균보다 큰 나이만 인덱스로 읽는다.
+     */
+    @Test
+    void olderThanAverage() {
+        queryResultCache.clear();
+
+        String plans = explain(() -> memberQueryRepository.findOlderThanAverage());
+
+        assertThat(plans).contains("IDX_MEMBER_AGE_USERNAME_ID");
+        assertThat(plans).containsOnlyOnce("TABLESCAN");
+    }
+
+    @Test
+    void teamsWithMembersIn() {
+        List<Long> teamIds = queryFactory
+                .select(team.id)
+                .from(team)
+                .where(team.name.in("planTeam1", "planTeam2", "planTeam3"))
+                .fetch();
+
+        assertPlans(() -> teamQueryRepository.findTeamsWithMembersIn(teamIds),
+                "PRIMARY_KEY", "IDX_MEMBER_TEAM_ID");
+    }
+
+    @Test
+    void dtosByIds() {
+        List<Long> ids = queryFactory
+                .select(member.id)
+                .from(member)
+                .where(member.username.in("planMember1", "planMember2", "planMember3"))
+                .fetch();
+
+        assertPlans(() -> memberQueryRepository.findDtosByIds(ids),
+                "PRIMARY_KEY");
+    }
+
+    /**
+     * query 가 실행한 select 마다 EXPLAIN 을 실행해서
+     * 기대한 인덱스가 모두 사용되고, 어떤 테이블도 전체를 읽지 않는지(tableScan) 확인한다.
+     */
+    private String assertPlans(Runnable query, String... expectedIndexes) {
+        String allPlans = explain(query);
+        for (String index : expectedIndexes) {
+            assertThat(allPlans).as("plan uses %s", index).contains(index);
+        }
+        assertThat(allPlans).as("full table scan").doesNotContain("TABLESCAN");
+        return allPlans;
+    }
+
+    /**
+     * query 가 실행한 select 들의 실행 계획 (대문자, 한 줄에 하나)
+     */
+    private String explain(Runnable query) {
+        List<String> statements;
+        try (StatementScope scope = StatementScope.capture("explain")) {
+            query.run();
+            statements = scope.getStatements();
+        }
+
+        List<String> plans = statements.stream()
+                .filter(sql -> SqlShapes.fingerprint(sql).startsWith("select"))
+                .map(sql -> jdbcTemplate.queryForObject("explain " + sql, String.class).toUpperCase())
+                .collect(Collectors.toList());
+
+        assertThat(plans).isNotEmpty();
+        return String.join("\n", plans);
+    }
+}
@@ -0,0 +1,80 @@
+package study.querydsl.query;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.entity.QMember.member;
+
+/**
+ * 커넥션 풀 크기만큼의 호출자가 각자 커넥션을 잡은 채 fetchAll 을 불러도
+ * 작업 스레드의 새 트랜잭션이 커넥션을 못 얻어 서로 기다리는 일이 없어야 한다.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.hikari.maximum-pool-size=4",
+        "spring.datasource.hikari.connection-timeout=3000"
+})
+class ParallelQueryExecutorPoolTest {
+
+    private static final int CALLERS = 4;
+
+    @Autowired
+    JPAQueryFactory queryFactory;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    ParallelQueryExecutor parallelQueryExecutor;
+
+    @Test
+    void saturatedPoolDoesNotDeadlock() throws Exception {
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        Long expected = readOnly.execute(status -> queryFactory.select(member.count()).from(member).fetchOne());
+
+        List<Function<JPAQueryFactory, ?>> queries = Arrays.asList(
+                factory -> factory.select(member.count()).from(member).fetchOne(),
+                factory -> factory.select(member.count()).from(member).fetchOne(),
+                factory -> factory.select(member.count()).from(member).fetchOne());
+
+        CountDownLatch holdingConnection = new CountDownLatch(CALLERS);
+        ExecutorService callers = Executors.newFixedThreadPool(CALLERS);
+        try {
+            List<CompletableFuture<List<Object>>> results = new ArrayList<>();
+            for (int i = 0; i < CALLERS; i++) {
+                results.add(CompletableFuture.supplyAsync(() -> readOnly.execute(status -> {
+                    // 쿼리를 한 번 실행해서 호출자가 커넥션을 잡게 한 뒤, 모든 호출자가 잡을 때까지 기다린다.
+                    queryFactory.select(member.count()).from(member).fetchOne();
+                    holdingConnection.countDown();
+                    try {
+                        holdingConnection.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return parallelQueryExecutor.fetchAll(queries);
+                }), callers));
+            }
+
+            for (CompletableFuture<List<Object>> result : results) {
+                assertThat(result.get(10, TimeUnit.SECONDS)).containsOnly(expected);
+            }
+        } finally {
+            callers.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package study.querydsl.query;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.entity.Member;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PersistenceContext;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assertions.*;
+import static study.querydsl.entity.QMember.member;
+
+@SpringBootTest
+class ParallelQueryExecutorTest {
+
+    @PersistenceContext
+    EntityManager em;
+
+    @Autowired
+    JPAQueryFactory queryFactory;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Autowired
+    ParallelQueryExecutor parallelQueryExecutor;
+
+    @Autowired
+    EntityManagerFactory emf;
+
+    /**
+     * 쿼리마다 작업 스레드의 읽기 전용 트랜잭션에서 실행되고, 결과는 넘긴 순서대로 모인다.
+     */
+    @Test
+    void fetchAllRunsOnWorkerThreads() {
+        List<Function<JPAQueryFactory, ?>> queries = Arrays.asList(
+                factory -> factory.select(member.count()).from(member).fetchOne(),
+                factory -> Thread.currentThread().getName(),
+                factory -> TransactionSynchronizationManager.isCurrentTransactionReadOnly());
+
+        List<Object> results = parallelQueryExecutor.fetchAll(queries);
+
+        assertEquals(results.get(0), queryFactory.select(member.count()).from(member).fetchOne());
+        assertThat((String) results.get(1)).startsWith("parallel-query-");
+        assertEquals(results.get(2), true);
+    }
+
+    /**
+     * 작업 스레드의 트랜잭션에는 남은 대기 시간이 timeout 으로 걸려 있다. (스프링이 쿼리 timeout 으로 넘긴다)
+     */
+    @Test
+    void workerTransactionIsBoundedByDeadline() {
+        Long timeToLive = parallelQueryExecutor.await(parallelQueryExecutor.submit(factory -> {
+            EntityManagerHolder holder = (EntityManagerHolder) TransactionSynchronizationManager.getResource(emf);
+            return holder.hasTimeout() ? holder.getTimeToLiveInMillis() : null;
+        }));
+
+        assertThat(timeToLive).isNotNull().isPositive().isLessThanOrEqualTo(30_000L);
+    }
+
+    @Test
+    void combine() {
+        String combined = parallelQueryExecutor.combine(
+                factory -> factory.select(member.count()).from(member).fetchOne(),
+                factory -> factory.select(member.age.max()).from(member).fetchOne(),
+                (count, maxAge) -> count + "/" + maxAge);
+
+        assertThat(combined).contains("/");
+    }
+
+    @Test
+    void failureIsRethrown() {
+        assertThatThrownBy(() -> parallelQueryExecutor.combine(
+                factory -> factory.select(member.count()).from(member).fetchOne(),
+                factory -> {
+                    throw new IllegalArgumentException("boom");
+                },
+                (count, nothing) -> count))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("boom");
+    }
+
+    /**
+     * 쓰기 트랜잭션 안에서는 커밋 전 변경이 보이도록 같은 스레드, 같은 트랜잭션에서 실행한다.
+     */
+    @Test
+    @Transactional
+    void readWriteTransactionRunsInline() {
+        em.persist(new Member("parallelMember", 10));
+
+        List<Function<JPAQueryFactory, ?>> queries = Arrays.asList(
+                factory -> factory.select(member.count()).from(member)
+                        .where(member.username.eq("parallelMember")).fetchOne(),
+                factory -> Thread.currentThread().getName());
+
+        List<Object> results = parallelQueryExecutor.fetchAll(queries);
+
+        assertEquals(results.get(0), 1L);
+        assertEquals(results.get(1), Thread.currentThread().getName());
+    }
+}
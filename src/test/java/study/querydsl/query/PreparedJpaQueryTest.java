@@ -0,0 +1,95 @@
+package study.querydsl.query;
+
+import com.querydsl.core.types.ParamNotSetException;
+import com.querydsl.core.types.dsl.Param;
+import com.querydsl.jpa.impl.JPAQuery;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.QMemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.*;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+@SpringBootTest
+@Transactional
+class PreparedJpaQueryTest {
+
+    @PersistenceContext
+    EntityManager em;
+
+    @BeforeEach
+    void before() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30, teamB));
+        em.persist(new Member("member4", 40, teamB));
+    }
+
+    /**
+     * 한 번 직렬화한 쿼리를 파라미터만 바꿔서 여러 번 실행한다.
+     */
+    @Test
+    void reuseWithDifferentParams() {
+        Param<String> username = new Param<>(String.class, "username");
+        PreparedJpaQuery<Member> query = PreparedJpaQuery.prepare(new JPAQuery<>()
+                .select(member)
+                .from(member)
+                .where(member.username.eq(username)));
+
+        assertEquals(query.with(em).set(username, "member1").fetchOne().getAge(), 10);
+        assertEquals(query.with(em).set(username, "member3").fetchOne().getAge(), 30);
+        assertNull(query.with(em).set(username, "none").fetchOne());
+    }
+
+    /**
+     * 상수와 Param 이 섞여 있어도 순서대로 바인딩되고, DTO 프로젝션/정렬/limit 이 유지된다.
+     */
+    @Test
+    void projectionWithConstantsAndParams() {
+        Param<Integer> minAge = new Param<>(Integer.class, "minAge");
+        PreparedJpaQuery<MemberTeamDto> query = PreparedJpaQuery.prepare(new JPAQuery<>()
+                .select(new QMemberTeamDto(member.id, member.username, member.age, team.id, team.name))
+                .from(member)
+                .join(member.team, team)
+                .where(team.name.eq("teamB").or(member.age.eq(10)), member.age.goe(minAge))
+                .orderBy(member.age.desc())
+                .limit(2));
+
+        List<MemberTeamDto> result = query.with(em).set(minAge, 10).fetch();
+        List<MemberTeamDto> older = query.with(em).set(minAge, 35).fetch();
+
+        assertThat(result)
+                .extracting("username")
+                .containsExactly("member4", "member3");
+        assertThat(older)
+                .extracting("teamName")
+                .containsExactly("teamB");
+    }
+
+    @Test
+    void paramNotSet() {
+        Param<String> username = new Param<>(String.class, "username");
+        PreparedJpaQuery<Member> query = PreparedJpaQuery.prepare(new JPAQuery<>()
+                .select(member)
+                .from(member)
+                .where(member.username.eq(username)));
+
+        assertThrows(ParamNotSetException.class, () -> query.with(em).fetch());
+    }
+}
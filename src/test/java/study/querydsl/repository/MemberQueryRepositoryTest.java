@@ -0,0 +1,192 @@
+package study.querydsl.repository;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.hibernate.Session;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.paging.KeysetPage;
+import study.querydsl.paging.TotalCountCache;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.*;
+import static study.querydsl.entity.QMember.member;
+
+@SpringBootTest
+@Transactional
+class MemberQueryRepositoryTest {
+
+    @PersistenceContext
+    EntityManager em;
+
+    @Autowired
+    JPAQueryFactory jpaQueryFactory;
+
+    @Autowired
+    MemberQueryRepository memberQueryRepository;
+
+    @Autowired
+    TotalCountCache totalCountCache;
+
+    @BeforeEach
+    void before() {
+        totalCountCache.clear();
+
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+
+        // 같은 나이, null 이름이 섞여 있어도 키셋 순서가 offset 순서와 같아야 한다.
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 20, teamA));
+        em.persist(new Member(null, 20));
+        em.persist(new Member("member4", 40, teamA));
+        em.persist(new Member(null, 40));
+        em.persist(new Member("member5", 100));
+    }
+
+    /**
+     * 커서를 따라가며 모든 페이지를 읽으면 offset 페이징으로 읽은 순서와 같아야 한다.
+     */
+    @Test
+    void keysetPagesMatchOffsetOrder() {
+        List<Member> expected = jpaQueryFactory
+                .selectFrom(member)
+                .orderBy(MemberQueryRepository.AGE_DESC_USERNAME_ASC.orderSpecifiers())
+                .fetch();
+
+        List<Member> actual = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            KeysetPage<Member> page = memberQueryRepository.findMembers(null, cursor, 2);
+            assertTrue(page.getContent().size() <= 2);
+            actual.addAll(page.getContent());
+            cursor = page.getNextCursor();
+            pages++;
+        } while (cursor != null);
+
+        assertEquals(pages, 4);
+        assertThat(actual).containsExactlyElementsOf(expected);
+        assertEquals(actual.get(0).getUsername(), "member5");
+        assertNull(actual.get(2).getUsername());
+    }
+
+    @Test
+    void keysetPageWithCondition() {
+        KeysetPage<Member> first = memberQueryRepository.findMembers(member.age.eq(20), null, 2);
+        KeysetPage<Member> second = memberQueryRepository.findMembers(member.age.eq(20), first.getNextCursor(), 2);
+
+        assertThat(first.getContent())
+                .extracting("username")
+                .containsExactly("member2", "member3");
+        assertThat(second.getContent())
+                .extracting("username")
+                .containsExactly((Object) null);
+        assertFalse(second.hasNext());
+    }
+
+    @Test
+    void rejectsForeignCursor() {
+        assertThrows(IllegalArgumentException.class,
+                () -> memberQueryRepository.findMembers(null, "bm90LWEtY3Vyc29y", 2));
+    }
+
+    /**
+     * 첫 페이지가 페이지 크기보다 작으면 count 쿼리 없이 total 을 알 수 있다.
+     */
+    @Test
+    void pageWithShortFirstPage() {
+        Page<Member> page = memberQueryRepository.findPage(member.age.eq(20), PageRequest.of(0, 10));
+
+        assertEquals(page.getContent().size(), 3);
+        assertEquals(page.getTotalElements(), 3);
+        assertEquals(page.getTotalPages(), 1);
+    }
+
+    @Test
+    void pageWithCount() {
+        Page<Member> page = memberQueryRepository.findPage(null,
+                PageRequest.of(1, 2, Sort.by(Sort.Order.asc("age"), Sort.Order.asc("id"))));
+
+        assertEquals(page.getContent().size(), 2);
+        assertEquals(page.getTotalElements(), 7);
+        assertThat(page.getContent())
+                .extracting("age")
+                .containsExactly(20, 20);
+    }
+
+    /**
+     * 쓰기 트랜잭션 안에서는 total 을 캐시하지 않으므로, 커밋 전에 추가한 회원도 바로 total 에 반영된다.
+     */
+    @Test
+    void pageTotalIsNotCachedInReadWriteTransaction() {
+        PageRequest pageRequest = PageRequest.of(0, 2);
+        Page<Member> first = memberQueryRepository.findPage(member.age.goe(20), pageRequest);
+
+        em.persist(new Member("member6", 50));
+        Page<Member> second = memberQueryRepository.findPage(member.age.goe(20), pageRequest);
+        Page<Member> otherCondition = memberQueryRepository.findPage(member.age.goe(10), pageRequest);
+
+        assertEquals(first.getTotalElements(), 6);
+        assertEquals(second.getTotalElements(), 7);
+        assertEquals(otherCondition.getTotalElements(), 8);
+    }
+
+    @Test
+    void searchDto() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+        condition.setAgeGoe(20);
+
+        List<MemberTeamDto> result = memberQueryRepository.search(condition);
+
+        assertThat(result)
+                .extracting("username")
+                .containsExactlyInAnyOrder("member2", "member3", "member4");
+        assertThat(result)
+                .extracting("teamName")
+                .containsOnly("teamA");
+    }
+
+    /**
+     * read-only 로 조회한 엔티티는 값을 바꿔도 flush 때 update 되지 않는다.
+     */
+    @Test
+    void searchReadOnly() {
+        em.flush();
+        em.clear();
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsername("member1");
+
+        List<Member> result = memberQueryRepository.searchReadOnly(condition);
+        Member member1 = result.get(0);
+        assertTrue(em.unwrap(Session.class).isReadOnly(member1));
+
+        member1.setAge(99);
+        em.flush();
+        em.clear();
+
+        Integer age = jpaQueryFactory
+                .select(member.age)
+                .from(member)
+                .where(member.username.eq("member1"))
+                .fetchOne();
+        assertEquals(age, 10);
+    }
+}
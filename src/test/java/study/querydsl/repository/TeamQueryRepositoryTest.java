@@ -0,0 +1,110 @@
+package study.querydsl.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.TeamMembersDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.metrics.StatementScope;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@Transactional
+class TeamQueryRepositoryTest {
+
+    @PersistenceContext
+    EntityManager em;
+
+    @Autowired
+    TeamQueryRepository teamQueryRepository;
+
+    List<Long> teamIds = new ArrayList<>();
+
+    /**
+     * team0 ~ team5, teamN 에는 N 명의 회원
+     */
+    @BeforeEach
+    void before() {
+        for (int i = 0; i < 6; i++) {
+            Team team = new Team("team" + i);
+            em.persist(team);
+            teamIds.add(team.getId());
+            for (int j = 0; j < i; j++) {
+                em.persist(new Member("member" + i + "_" + j, 10 * j, team));
+            }
+        }
+        em.flush();
+        em.clear();
+    }
+
+    /**
+     * 페이지 크기와 상관없이 팀 조회 1번 + 회원 in 조회 1번
+     */
+    @ParameterizedTest
+    @ValueSource(ints = {2, 4, 6})
+    void twoQueriesPerPage(int size) {
+        Slice<TeamMembersDto> page;
+        try (StatementScope scope = StatementScope.open("teams")) {
+            page = teamQueryRepository.findTeamsWithMembers(PageRequest.of(0, size));
+            assertEquals(scope.getStatementCount(), 2);
+        }
+
+        assertThat(page.getContent()).hasSizeLessThanOrEqualTo(size);
+        for (TeamMembersDto team : page.getContent()) {
+            int expected = Integer.parseInt(team.getName().substring("team".length()));
+            assertThat(team.getMembers()).hasSize(expected);
+            assertThat(team.getMembers())
+                    .allSatisfy(m -> assertThat(m.getUsername()).startsWith("member" + expected + "_"));
+        }
+    }
+
+    /**
+     * left join 한 번으로 팀마다 회원 목록을 묶는다. 회원이 없는 team0 은 빈 목록
+     */
+    @Test
+    void teamsWithMembersInOneQuery() {
+        List<TeamMembersDto> teams;
+        try (StatementScope scope = StatementScope.open("teamsIn")) {
+            teams = teamQueryRepository.findTeamsWithMembersIn(teamIds);
+            assertEquals(scope.getStatementCount(), 1);
+        }
+
+        assertThat(teams).extracting("teamId").containsExactlyElementsOf(teamIds);
+        for (TeamMembersDto team : teams) {
+            int expected = Integer.parseInt(team.getName().substring("team".length()));
+            assertThat(team.getMembers()).hasSize(expected);
+            assertThat(team.getMembers()).extracting("username")
+                    .containsExactlyElementsOf(IntStream.range(0, expected)
+                            .mapToObj(j -> "member" + expected + "_" + j)
+                            .collect(Collectors.toList()));
+        }
+    }
+
+    @Test
+    void lastPage() {
+        Slice<TeamMembersDto> first = teamQueryRepository.findTeamsWithMembers(PageRequest.of(0, 4));
+        Slice<TeamMembersDto> second = teamQueryRepository.findTeamsWithMembers(PageRequest.of(1, 4));
+
+        assertTrue(first.hasNext());
+        assertFalse(second.hasNext());
+        assertThat(second.getContent())
+                .extracting("name")
+                .containsExactly("team4", "team5");
+    }
+}
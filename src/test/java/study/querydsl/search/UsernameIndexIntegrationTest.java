@@ -0,0 +1,99 @@
+package study.querydsl.search;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.entity.Member;
+import study.querydsl.service.BulkWriteResult;
+import study.querydsl.service.MemberBulkWriter;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.*;
+import static study.querydsl.entity.QMember.member;
+
+/**
+ * 실제 커밋 -> hibernate 커밋 이벤트 -> UsernameIndex, MemberBulkWriter 벌크 삭제 -> UsernameIndex 까지 확인한다.
+ * 커밋 이벤트가 필요하므로 테스트 트랜잭션 없이 실행하고, 만든 데이터는 직접 지운다.
+ */
+@SpringBootTest(properties = "app.bulk-write.chunk-size=10")
+class UsernameIndexIntegrationTest {
+
+    @PersistenceContext
+    EntityManager em;
+
+    @Autowired
+    JPAQueryFactory queryFactory;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Autowired
+    UsernameIndex usernameIndex;
+
+    @Autowired
+    MemberBulkWriter memberBulkWriter;
+
+    @AfterEach
+    void after() {
+        transactionTemplate.executeWithoutResult(status ->
+                queryFactory.delete(member).where(member.username.startsWith("indexMember")).execute());
+        usernameIndex.rebuild();
+    }
+
+    @Test
+    void committedPersistRenameAndRemove() {
+        Long id = transactionTemplate.execute(status -> {
+            Member added = new Member("indexMemberA", 10);
+            em.persist(added);
+            return added.getId();
+        });
+        assertThat(usernameIndex.findIdsByPrefix("indexMemberA", 10)).containsExactly(id);
+
+        transactionTemplate.executeWithoutResult(status -> em.find(Member.class, id).setUsername("indexMemberB"));
+        assertThat(usernameIndex.findIdsByPrefix("indexMemberA", 10)).isEmpty();
+        assertThat(usernameIndex.findIdsContaining("dexMemberB", 10)).containsExactly(id);
+
+        transactionTemplate.executeWithoutResult(status -> em.remove(em.find(Member.class, id)));
+        assertThat(usernameIndex.findIdsByPrefix("indexMember", 10)).isEmpty();
+    }
+
+    @Test
+    void rolledBackPersistIsIgnored() {
+        transactionTemplate.executeWithoutResult(status -> {
+            em.persist(new Member("indexMemberRollback", 10));
+            status.setRollbackOnly();
+        });
+
+        assertThat(usernameIndex.findIdsByPrefix("indexMemberRollback", 10)).isEmpty();
+    }
+
+    /**
+     * 벌크 삭제는 커밋 이벤트가 없으므로 MemberBulkWriter 가 구간마다 지운 id 를 인덱스에서 뺀다.
+     */
+    @Test
+    void bulkDeleteRemovesIds() {
+        List<Long> ids = transactionTemplate.execute(status -> IntStream.range(0, 25)
+                .mapToObj(i -> {
+                    Member added = new Member("indexMember" + i, i);
+                    em.persist(added);
+                    return added.getId();
+                })
+                .collect(Collectors.toList()));
+        assertThat(usernameIndex.findIdsByPrefix("indexMember", 100)).containsExactlyInAnyOrderElementsOf(ids);
+
+        BulkWriteResult deleted = memberBulkWriter.delete(member.username.startsWith("indexMember").and(member.age.lt(20)));
+
+        assertEquals(deleted.getAffectedRows(), 20L);
+        assertEquals(deleted.getChunks(), 2);
+        assertThat(usernameIndex.findIdsByPrefix("indexMember", 100)).containsExactlyInAnyOrderElementsOf(ids.subList(20, 25));
+    }
+}
@@ -0,0 +1,60 @@
+package study.querydsl.search;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import study.querydsl.entity.Member;
+import study.querydsl.event.EntityCommitEvent;
+
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.*;
+
+class UsernameIndexTest {
+
+    UsernameIndex index = new UsernameIndex(null, 100);
+
+    @BeforeEach
+    void before() {
+        index.onCommit(insert(1L, "member1"));
+        index.onCommit(insert(2L, "member2"));
+        index.onCommit(insert(3L, "member10"));
+        index.onCommit(insert(4L, "remember"));
+        index.onCommit(insert(5L, "member1"));
+    }
+
+    /**
+     * 이름 순, 같은 이름은 id 순
+     */
+    @Test
+    void prefix() {
+        assertThat(index.findIdsByPrefix("member1", 10)).containsExactly(1L, 5L, 3L);
+        assertThat(index.findIdsByPrefix("member", 2)).containsExactly(1L, 5L);
+        assertThat(index.findIdsByPrefix("x", 10)).isEmpty();
+    }
+
+    @Test
+    void substring() {
+        assertThat(index.findIdsContaining("ember", 10)).containsExactly(1L, 5L, 3L, 2L, 4L);
+        assertThat(index.findIdsContaining("emember", 10)).containsExactly(4L);
+        assertThat(index.findIdsContaining("r1", 10)).containsExactly(1L, 5L, 3L);
+        assertThat(index.findIdsContaining("mex", 10)).isEmpty();
+    }
+
+    @Test
+    void renameAndDelete() {
+        index.onCommit(new EntityCommitEvent(Member.class, 2L, EntityCommitEvent.Kind.UPDATE,
+                null, Collections.singletonMap("username", "renamed")));
+        index.onCommit(new EntityCommitEvent(Member.class, 1L, EntityCommitEvent.Kind.DELETE,
+                Collections.singletonMap("username", "member1"), null));
+
+        assertThat(index.findIdsByPrefix("member", 10)).containsExactly(5L, 3L);
+        assertThat(index.findIdsContaining("name", 10)).containsExactly(2L);
+        assertEquals(index.size(), 4);
+    }
+
+    private EntityCommitEvent insert(Long id, String username) {
+        return new EntityCommitEvent(Member.class, id, EntityCommitEvent.Kind.INSERT,
+                null, Collections.singletonMap("username", username));
+    }
+}
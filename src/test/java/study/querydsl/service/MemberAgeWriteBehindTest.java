@@ -0,0 +1,171 @@
+package study.querydsl.service;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.entity.Member;
+import study.querydsl.metrics.StatementScope;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static study.querydsl.entity.QMember.member;
+
+/**
+ * 예약 flush 가 끼어들지 않게 주기를 길게 두고 flush() 를 직접 호출한다.
+ */
+@SpringBootTest(properties = "app.write-behind.flush-interval-ms=3600000")
+class MemberAgeWriteBehindTest {
+
+    @PersistenceContext
+    EntityManager em;
+
+    @Autowired
+    JPAQueryFactory queryFactory;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Autowired
+    MemberAgeWriteBehind memberAgeWriteBehind;
+
+    List<Long> ids = new ArrayList<>();
+
+    @BeforeEach
+    void before() {
+        memberAgeWriteBehind.flush();
+        transactionTemplate.executeWithoutResult(status -> {
+            for (int i = 0; i < 3; i++) {
+                Member m = new Member("writeBehind" + i, 10);
+                em.persist(m);
+                ids.add(m.getId());
+            }
+        });
+    }
+
+    @AfterEach
+    void after() {
+        transactionTemplate.executeWithoutResult(status ->
+                queryFactory.delete(member).where(member.username.startsWith("writeBehind")).execute());
+    }
+
+    /**
+     * 같은 회원의 변경은 마지막 값만 반영되고, 조회 1번 + batch update 1번으로 끝난다.
+     */
+    @Test
+    void coalescesPerMember() {
+        WriteBehindStats before = memberAgeWriteBehind.stats();
+        for (int age = 11; age <= 20; age++) {
+            for (Long id : ids) {
+                memberAgeWriteBehind.enqueue(id, age);
+            }
+        }
+        assertEquals(memberAgeWriteBehind.stats().getPending(), 3);
+
+        try (StatementScope scope = StatementScope.open("flush")) {
+            assertEquals(memberAgeWriteBehind.flush(), 3);
+            assertEquals(scope.getStatementCount(), 2);
+        }
+
+        WriteBehindStats after = memberAgeWriteBehind.stats();
+        assertEquals(after.getPending(), 0);
+        assertEquals(after.getCoalesced() - before.getCoalesced(), 27L);
+        assertEquals(after.getFlushed() - before.getFlushed(), 3L);
+        assertEquals(ages(), List.of(20, 20, 20));
+    }
+
+    @Test
+    void missingMemberIsDropped() {
+        WriteBehindStats before = memberAgeWriteBehind.stats();
+        memberAgeWriteBehind.enqueue(ids.get(0), 30);
+        memberAgeWriteBehind.enqueue(-1L, 30);
+
+        assertEquals(memberAgeWriteBehind.flush(), 1);
+        assertEquals(memberAgeWriteBehind.stats().getDropped() - before.getDropped(), 1L);
+        assertEquals(ages(), List.of(30, 10, 10));
+    }
+
+    /**
+     * 자리가 없으면 enqueue-timeout 만큼 기다린 뒤 거절하고, 이미 대기 중인 회원의 변경은 받는다.
+     */
+    @Test
+    void fullBufferRejects() {
+        MemberAgeWriteBehind writeBehind = new MemberAgeWriteBehind(em, queryFactory,
+                transactionTemplate.getTransactionManager(), 10, 2,
+                Duration.ofMillis(50), Duration.ofSeconds(1), Duration.ofMinutes(1));
+        try {
+            writeBehind.enqueue(ids.get(0), 30);
+            writeBehind.enqueue(ids.get(1), 30);
+            writeBehind.enqueue(ids.get(0), 31);
+
+            assertThrows(WriteBehindFullException.class, () -> writeBehind.enqueue(ids.get(2), 30));
+            assertEquals(writeBehind.stats().getRejected(), 1L);
+
+            assertEquals(writeBehind.flush(), 2);
+            writeBehind.enqueue(ids.get(2), 32);
+            assertEquals(writeBehind.flush(), 1);
+            assertEquals(ages(), List.of(31, 30, 32));
+        } finally {
+            writeBehind.close();
+        }
+    }
+
+    /**
+     * 반영이 실패하면 변경은 자리를 차지한 채 남고, backoff 동안 예약 flush 는 DB 에 가지 않는다.
+     */
+    @Test
+    void failedFlushKeepsCapacityAndBacksOff() {
+        PlatformTransactionManager unavailable = new PlatformTransactionManager() {
+            @Override
+            public TransactionStatus getTransaction(TransactionDefinition definition) {
+                throw new CannotCreateTransactionException("database unavailable");
+            }
+
+            @Override
+            public void commit(TransactionStatus status) {
+            }
+
+            @Override
+            public void rollback(TransactionStatus status) {
+            }
+        };
+        MemberAgeWriteBehind writeBehind = new MemberAgeWriteBehind(em, queryFactory, unavailable, 10, 2,
+                Duration.ofMillis(50), Duration.ofMinutes(1), Duration.ofMinutes(1));
+
+        try {
+            writeBehind.enqueue(ids.get(0), 30);
+            writeBehind.enqueue(ids.get(1), 30);
+            assertEquals(writeBehind.flush(), 0);
+            writeBehind.scheduledFlush();
+
+            WriteBehindStats stats = writeBehind.stats();
+            assertEquals(stats.getPending(), 2);
+            assertEquals(stats.getFailures(), 1L);
+            assertThrows(WriteBehindFullException.class, () -> writeBehind.enqueue(ids.get(2), 30));
+            assertEquals(ages(), List.of(10, 10, 10));
+        } finally {
+            writeBehind.close();
+        }
+    }
+
+    private List<Integer> ages() {
+        return queryFactory
+                .select(member.age)
+                .from(member)
+                .where(member.username.startsWith("writeBehind"))
+                .orderBy(member.username.asc())
+                .fetch();
+    }
+}
@@ -0,0 +1,90 @@
+package study.querydsl.service;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.entity.Team;
+import study.querydsl.metrics.StatementScope;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.*;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+@SpringBootTest
+@Transactional
+class MemberBulkLoaderTest {
+
+    @PersistenceContext
+    EntityManager em;
+
+    @Autowired
+    JPAQueryFactory jpaQueryFactory;
+
+    @Autowired
+    MemberBulkLoader memberBulkLoader;
+
+    /**
+     * 이미 있는 팀은 재사용하고, 없는 팀만 새로 만든다.
+     */
+    @Test
+    void load() {
+        em.persist(new Team("teamA"));
+
+        BulkLoadResult result = memberBulkLoader.load(IntStream.range(0, 2500)
+                .mapToObj(i -> new MemberRecord("bulk" + i, i % 100,
+                        i % 5 == 0 ? null : (i % 2 == 0 ? "teamA" : "teamB"))));
+
+        assertEquals(result.getMembers(), 2500);
+        assertEquals(result.getTeamsCreated(), 1);
+        assertTrue(result.getRowsPerSecond() > 0);
+
+        List<Tuple> counts = jpaQueryFactory
+                .select(team.name, member.count())
+                .from(member)
+                .join(member.team, team)
+                .where(member.username.startsWith("bulk"))
+                .groupBy(team.name)
+                .orderBy(team.name.asc())
+                .fetch();
+
+        assertEquals(counts.get(0).get(team.name), "teamA");
+        assertEquals(counts.get(0).get(member.count()), 1000L);
+        assertEquals(counts.get(1).get(team.name), "teamB");
+        assertEquals(counts.get(1).get(member.count()), 1000L);
+    }
+
+    /**
+     * 팀 200개, 회원 2000명: 팀 조회는 chunk 마다 한 번이고, insert 는 batch 로 묶여서
+     * 행마다 persist + flush 할 때(회원 2000 + 팀 200 번 이상)보다 실행하는 SQL 이 10배 이상 적다.
+     */
+    @Test
+    void loadBatchesInsertsAndLooksUpTeamsPerChunk() {
+        em.persist(new Team("roundTripTeam0"));
+        em.flush();
+
+        int rows = 2000;
+        try (StatementScope scope = StatementScope.open("bulkLoad")) {
+            BulkLoadResult result = memberBulkLoader.load(IntStream.range(0, rows)
+                    .mapToObj(i -> new MemberRecord("roundTrip" + i, i % 100, "roundTripTeam" + i % 200)));
+
+            assertEquals(result.getTeamsCreated(), 199);
+            assertThat(scope.getStatementCount()).isLessThanOrEqualTo(rows / 10);
+        }
+
+        assertEquals(jpaQueryFactory
+                .select(member.count())
+                .from(member)
+                .join(member.team, team)
+                .where(member.username.startsWith("roundTrip"))
+                .fetchOne(), (long) rows);
+    }
+}
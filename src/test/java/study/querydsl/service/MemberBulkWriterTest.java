@@ -0,0 +1,141 @@
+package study.querydsl.service;
+
+import com.querydsl.core.types.Predicate;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assertions.*;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * 구간마다 커밋하므로 테스트 트랜잭션 없이 실행하고, 만든 데이터는 직접 지운다.
+ */
+@SpringBootTest(properties = "app.bulk-write.chunk-size=10")
+class MemberBulkWriterTest {
+
+    @PersistenceContext
+    EntityManager em;
+
+    @Autowired
+    JPAQueryFactory queryFactory;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Autowired
+    MemberBulkLoader memberBulkLoader;
+
+    @Autowired
+    MemberBulkWriter memberBulkWriter;
+
+    /**
+     * bulkTeamA 에 회원 50명 (나이 0 ~ 49), bulkTeamB 는 비어 있다.
+     */
+    @BeforeEach
+    void before() {
+        transactionTemplate.executeWithoutResult(status -> em.persist(new Team("bulkTeamB")));
+        memberBulkLoader.load(IntStream.range(0, 50)
+                .mapToObj(i -> new MemberRecord("bulkWrite" + i, i, "bulkTeamA")));
+    }
+
+    @AfterEach
+    void after() {
+        transactionTemplate.executeWithoutResult(status -> {
+            queryFactory.delete(member).where(member.username.startsWith("bulkWrite")).execute();
+            queryFactory.delete(team).where(team.name.startsWith("bulkTeam")).execute();
+        });
+    }
+
+    @Test
+    void updateAgeInChunks() {
+        BulkWriteResult result = memberBulkWriter.updateAge(
+                member.username.startsWith("bulkWrite").and(member.age.lt(20)), 100);
+
+        assertEquals(result.getAffectedRows(), 20L);
+        assertThat(result.getChunks()).isGreaterThanOrEqualTo(2);
+        assertTrue(result.getRowsPerSecond() > 0);
+        assertEquals(countMembers(member.age.eq(100)), 20L);
+    }
+
+    @Test
+    void changeTeamAndDelete() {
+        Long teamBId = queryFactory.select(team.id).from(team).where(team.name.eq("bulkTeamB")).fetchOne();
+
+        BulkWriteResult moved = memberBulkWriter.changeTeam(
+                member.username.startsWith("bulkWrite").and(member.age.goe(40)), teamBId);
+        assertEquals(moved.getAffectedRows(), 10L);
+        assertEquals(countMembers(member.team.id.eq(teamBId)), 10L);
+
+        BulkWriteResult deleted = memberBulkWriter.delete(member.team.id.eq(teamBId));
+        assertEquals(deleted.getAffectedRows(), 10L);
+        assertEquals(countMembers(null), 40L);
+    }
+
+    /**
+     * 조건에 맞는 id 가 넓게 흩어져 있어도 빈 id 구간을 돌지 않는다. (5명마다 1명, 10명 -> 한 구간)
+     */
+    @Test
+    void sparseMatchesUseOneChunk() {
+        BulkWriteResult result = memberBulkWriter.updateAge(
+                member.username.in(IntStream.range(0, 10).mapToObj(i -> "bulkWrite" + i * 5).toArray(String[]::new)), 100);
+
+        assertEquals(result.getAffectedRows(), 10L);
+        assertEquals(result.getChunks(), 1);
+        assertEquals(countMembers(member.age.eq(100)), 10L);
+    }
+
+    @Test
+    void noMatchingRows() {
+        BulkWriteResult result = memberBulkWriter.addAge(member.username.eq("bulkWriteNone"), 1);
+
+        assertEquals(result.getAffectedRows(), 0L);
+        assertEquals(result.getChunks(), 0);
+    }
+
+    /**
+     * 같은 영속성 컨텍스트에 남아 있던 회원은 detach 되어 다시 읽으면 바뀐 값이 보인다.
+     */
+    @Test
+    void staleMembersAreDetached() {
+        TransactionTemplate readOnly = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        readOnly.setReadOnly(true);
+
+        readOnly.executeWithoutResult(status -> {
+            Member before = queryFactory.selectFrom(member).where(member.username.eq("bulkWrite0")).fetchOne();
+            memberBulkWriter.addAge(member.username.eq("bulkWrite0"), 5);
+
+            assertFalse(em.contains(before));
+            Member after = queryFactory.selectFrom(member).where(member.username.eq("bulkWrite0")).fetchOne();
+            assertEquals(after.getAge(), 5);
+        });
+    }
+
+    @Test
+    void readWriteTransactionIsRejected() {
+        assertThatThrownBy(() -> transactionTemplate.executeWithoutResult(status ->
+                memberBulkWriter.addAge(member.username.startsWith("bulkWrite"), 1)))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    private long countMembers(Predicate condition) {
+        return queryFactory
+                .select(member.count())
+                .from(member)
+                .where(member.username.startsWith("bulkWrite"), condition)
+                .fetchOne();
+    }
+}
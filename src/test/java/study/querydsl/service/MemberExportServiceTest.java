@@ -0,0 +1,65 @@
+package study.querydsl.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@Transactional
+class MemberExportServiceTest {
+
+    @PersistenceContext
+    EntityManager em;
+
+    @Autowired
+    MemberExportService memberExportService;
+
+    @BeforeEach
+    void before() {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member,\"2\"", 20, teamA));
+        em.persist(new Member("member3", 30));
+    }
+
+    @Test
+    void exportCsv() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long count = memberExportService.export(ExportFormat.CSV, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(count, 3);
+        assertEquals(lines[0], "member_id,username,age,team_id,team_name");
+        assertThat(lines[1]).contains(",member1,10,").endsWith(",teamA");
+        assertThat(lines[2]).contains("\"member,\"\"2\"\"\",20,");
+        assertThat(lines[3]).endsWith(",member3,30,,");
+    }
+
+    @Test
+    void exportNdjson() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long count = memberExportService.export(ExportFormat.NDJSON, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(count, 3);
+        assertEquals(lines.length, 3);
+        assertThat(lines[0]).startsWith("{\"member_id\":").contains("\"team_name\":\"teamA\"");
+        assertThat(lines[2]).contains("\"username\":\"member3\"", "\"team_id\":null");
+    }
+}
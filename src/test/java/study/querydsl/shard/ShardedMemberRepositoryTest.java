@@ -0,0 +1,173 @@
+package study.querydsl.shard;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.paging.KeysetPage;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.*;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * 샤드 3개를 서로 다른 인메모리 H2 로 띄운다.
+ */
+@SpringBootTest(properties = {
+        "app.sharding.enabled=true",
+        "app.sharding.shards[0].jdbc-url=jdbc:h2:mem:shard0;DB_CLOSE_DELAY=-1",
+        "app.sharding.shards[0].username=sa",
+        "app.sharding.shards[1].jdbc-url=jdbc:h2:mem:shard1;DB_CLOSE_DELAY=-1",
+        "app.sharding.shards[1].username=sa",
+        "app.sharding.shards[2].jdbc-url=jdbc:h2:mem:shard2;DB_CLOSE_DELAY=-1",
+        "app.sharding.shards[2].username=sa"
+})
+class ShardedMemberRepositoryTest {
+
+    @Autowired
+    ShardRegistry shardRegistry;
+
+    @Autowired
+    ShardedMemberRepository shardedMemberRepository;
+
+    List<MemberTeamDto> saved;
+
+    /**
+     * 팀마다 회원 수를 다르게 해서, 샤드별 평균의 평균과 전체 평균이 달라지게 한다.
+     */
+    @BeforeEach
+    void before() {
+        for (Shard shard : shardRegistry.getShards()) {
+            shard.write((em, queryFactory) -> {
+                queryFactory.delete(member).execute();
+                return queryFactory.delete(team).execute();
+            });
+        }
+
+        saved = new ArrayList<>();
+        List<String> teamNames = Arrays.asList("teamA", "teamB", "teamC", "teamD", "teamE", "teamF");
+        for (int t = 0; t < teamNames.size(); t++) {
+            String teamName = teamNames.get(t);
+            Long teamId = shardedMemberRepository.saveTeam(teamName);
+            for (int i = 0; i < (t + 1) * 3; i++) {
+                String username = teamName + "-member" + i;
+                int age = 10 + (t * 7 + i * 3) % 50;
+                Long memberId = shardedMemberRepository.saveMember(username, age, teamId);
+                saved.add(new MemberTeamDto(memberId, username, age, teamId, teamName));
+            }
+        }
+        Long memberId = shardedMemberRepository.saveMember("noTeam", 99, null);
+        saved.add(new MemberTeamDto(memberId, "noTeam", 99, null, null));
+    }
+
+    /**
+     * 회원은 팀과 같은 샤드에 저장되고, id 상위 비트로 샤드를 찾을 수 있다.
+     */
+    @Test
+    void membersAreStoredWithTheirTeam() {
+        assertTrue(shardRegistry.getShards().stream()
+                .filter(shard -> countOn(shard) > 0).count() > 1, "data should be spread over shards");
+
+        for (MemberTeamDto dto : saved) {
+            Shard shard = shardRegistry.shardOf(dto.getMemberId());
+            if (dto.getTeamId() != null) {
+                assertEquals(shardRegistry.shardOf(dto.getTeamId()), shard);
+                assertEquals(shardRegistry.shardForKey(dto.getTeamName()), shard);
+            }
+            Long found = shard.read(queryFactory -> queryFactory
+                    .select(member.count())
+                    .from(member)
+                    .where(member.id.eq(dto.getMemberId()))
+                    .fetchOne());
+            assertEquals(found, 1L);
+        }
+    }
+
+    @Test
+    void findByTeamId() {
+        MemberTeamDto any = saved.get(5);
+
+        List<MemberTeamDto> result = shardedMemberRepository.findByTeamId(any.getTeamId());
+
+        assertEquals(result, saved.stream()
+                .filter(dto -> any.getTeamId().equals(dto.getTeamId()))
+                .sorted(Comparator.comparing(MemberTeamDto::getMemberId))
+                .collect(Collectors.toList()));
+    }
+
+    @Test
+    void ageStatisticsAcrossShards() {
+        AgeStatistics statistics = shardedMemberRepository.ageStatistics(new MemberSearchCondition());
+
+        long sum = saved.stream().mapToLong(MemberTeamDto::getAge).sum();
+        assertEquals(statistics.getMemberCount(), saved.size());
+        assertEquals(statistics.getAgeSum(), sum);
+        assertEquals(statistics.getMinAge(), saved.stream().mapToInt(MemberTeamDto::getAge).min().getAsInt());
+        assertEquals(statistics.getMaxAge(), 99);
+        assertEquals(statistics.getAverageAge(), (double) sum / saved.size(), 0.000001);
+    }
+
+    @Test
+    void ageStatisticsForOneTeam() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamC");
+        condition.setAgeGoe(20);
+
+        AgeStatistics statistics = shardedMemberRepository.ageStatistics(condition);
+
+        List<MemberTeamDto> expected = saved.stream()
+                .filter(dto -> "teamC".equals(dto.getTeamName()) && dto.getAge() >= 20)
+                .collect(Collectors.toList());
+        assertEquals(statistics.getMemberCount(), expected.size());
+        assertEquals(statistics.getAgeSum(), expected.stream().mapToLong(MemberTeamDto::getAge).sum());
+    }
+
+    /**
+     * 페이지를 끝까지 넘기면 전체를 한 번에 정렬한 것과 같은 순서로, 빠짐없이 중복 없이 나온다.
+     */
+    @Test
+    void keysetPagesAreMergedInGlobalOrder() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(15);
+
+        List<MemberTeamDto> all = new ArrayList<>();
+        String cursor = null;
+        do {
+            KeysetPage<MemberTeamDto> page = shardedMemberRepository.search(condition, cursor, 7);
+            assertThat(page.getContent().size()).isLessThanOrEqualTo(7);
+            all.addAll(page.getContent());
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+
+        assertEquals(all, saved.stream()
+                .filter(dto -> dto.getAge() >= 15)
+                .sorted(ShardedMemberRepository.AGE_DESC_USERNAME_ASC.comparator())
+                .collect(Collectors.toList()));
+    }
+
+    @Test
+    void mergeSorted() {
+        List<List<Integer>> sortedLists = Arrays.asList(
+                Arrays.asList(1, 4, 9),
+                Collections.emptyList(),
+                Arrays.asList(2, 3, 10, 11));
+
+        List<Integer> merged = ShardedMemberRepository.mergeSorted(sortedLists, Comparator.naturalOrder(), 5);
+
+        assertEquals(merged, Arrays.asList(1, 2, 3, 4, 9));
+    }
+
+    private static long countOn(Shard shard) {
+        return shard.read(queryFactory -> queryFactory.select(member.count()).from(member).fetchOne());
+    }
+}
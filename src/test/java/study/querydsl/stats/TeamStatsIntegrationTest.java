@@ -0,0 +1,156 @@
+package study.querydsl.stats;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * 실제 커밋 -> hibernate 커밋 이벤트 -> TeamStatsRegistry -> /teams/{id}/stats 까지 확인한다.
+ * 커밋 이벤트가 필요하므로 테스트 트랜잭션 없이 실행하고, 만든 데이터는 직접 지운다.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class TeamStatsIntegrationTest {
+
+    @PersistenceContext
+    EntityManager em;
+
+    @Autowired
+    JPAQueryFactory queryFactory;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Autowired
+    TeamStatsRegistry teamStatsRegistry;
+
+    @Autowired
+    MockMvc mockMvc;
+
+    Long teamId;
+
+    /**
+     * 다른 테스트가 벌크 연산으로 바꾼 데이터가 있을 수 있으므로 DB 에서 다시 만들고 시작한다.
+     */
+    @BeforeEach
+    void before() {
+        teamId = transactionTemplate.execute(status -> {
+            Team statsTeam = new Team("statsTeam");
+            em.persist(statsTeam);
+            em.persist(new Member("statsMember1", 10, statsTeam));
+            em.persist(new Member("statsMember2", 30, statsTeam));
+            return statsTeam.getId();
+        });
+        teamStatsRegistry.rebuild();
+    }
+
+    @AfterEach
+    void after() {
+        transactionTemplate.executeWithoutResult(status -> {
+            queryFactory.delete(member).where(member.username.startsWith("statsMember")).execute();
+            queryFactory.delete(team).where(team.name.eq("statsTeam")).execute();
+        });
+        teamStatsRegistry.rebuild();
+    }
+
+    @Test
+    void committedPersistAndDeleteMoveStats() throws Exception {
+        mockMvc.perform(get("/teams/{teamId}/stats", teamId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.memberCount").value(2))
+                .andExpect(jsonPath("$.maxAge").value(30));
+
+        Long memberId = transactionTemplate.execute(status -> {
+            Member added = new Member("statsMember3", 50, em.getReference(Team.class, teamId));
+            em.persist(added);
+            return added.getId();
+        });
+        mockMvc.perform(get("/teams/{teamId}/stats", teamId))
+                .andExpect(jsonPath("$.memberCount").value(3))
+                .andExpect(jsonPath("$.ageSum").value(90))
+                .andExpect(jsonPath("$.maxAge").value(50));
+
+        transactionTemplate.executeWithoutResult(status -> em.remove(em.find(Member.class, memberId)));
+        mockMvc.perform(get("/teams/{teamId}/stats", teamId))
+                .andExpect(jsonPath("$.memberCount").value(2))
+                .andExpect(jsonPath("$.maxAge").value(30));
+
+        assertThat(teamStatsRegistry.verify()).isEmpty();
+    }
+
+    @Test
+    void rolledBackChangesAreIgnored() {
+        transactionTemplate.executeWithoutResult(status -> {
+            em.persist(new Member("statsMember3", 50, em.getReference(Team.class, teamId)));
+            status.setRollbackOnly();
+        });
+
+        assertThat(teamStatsRegistry.get(teamId).getMemberCount()).isEqualTo(2);
+        assertThat(teamStatsRegistry.verify()).isEmpty();
+    }
+
+    /**
+     * 이벤트가 오지 않는 벌크 변경은 verify 로 드러나고, rebuild 로 맞춰진다.
+     */
+    @Test
+    void verifyDetectsBulkChanges() {
+        transactionTemplate.executeWithoutResult(status -> queryFactory
+                .update(member)
+                .set(member.age, member.age.add(1))
+                .where(member.team.id.eq(teamId))
+                .execute());
+
+        assertThat(teamStatsRegistry.verify()).anySatisfy(mismatch -> assertThat(mismatch).startsWith("team " + teamId));
+
+        teamStatsRegistry.rebuild();
+        assertThat(teamStatsRegistry.verify()).isEmpty();
+        assertThat(teamStatsRegistry.get(teamId).getAgeSum()).isEqualTo(42);
+    }
+
+    /**
+     * rebuild 조회 중에 커밋된 변경은 빠지지도, 두 번 반영되지도 않아야 한다.
+     */
+    @Test
+    void commitsDuringRebuildAreCountedOnce() throws Exception {
+        ExecutorService writer = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> writes = writer.submit(() -> {
+                for (int i = 0; i < 50; i++) {
+                    int age = i;
+                    transactionTemplate.executeWithoutResult(status ->
+                            em.persist(new Member("statsMember" + (100 + age), age, em.getReference(Team.class, teamId))));
+                }
+            });
+            while (!writes.isDone()) {
+                teamStatsRegistry.rebuild();
+            }
+            writes.get();
+        } finally {
+            writer.shutdownNow();
+        }
+
+        assertThat(teamStatsRegistry.get(teamId).getMemberCount()).isEqualTo(52);
+        assertThat(teamStatsRegistry.verify()).isEmpty();
+    }
+}
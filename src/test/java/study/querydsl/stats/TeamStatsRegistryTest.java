@@ -0,0 +1,95 @@
+package study.querydsl.stats;
+
+import org.junit.jupiter.api.Test;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.event.EntityCommitEvent;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.*;
+
+class TeamStatsRegistryTest {
+
+    TeamStatsRegistry registry = new TeamStatsRegistry(null, null);
+
+    @Test
+    void insertAndDelete() {
+        registry.onCommit(insert(1L, 1L, 10));
+        registry.onCommit(insert(2L, 1L, 20));
+        registry.onCommit(insert(3L, 1L, 30));
+
+        TeamStatistics stats = registry.get(1L);
+        assertEquals(stats.getMemberCount(), 3L);
+        assertEquals(stats.getAgeSum(), 60L);
+        assertEquals(stats.getMinAge(), 10);
+        assertEquals(stats.getMaxAge(), 30);
+        assertEquals(stats.getAverageAge(), 20.0);
+
+        //최소값을 가진 회원이 삭제되면 다음 최소값으로
+        registry.onCommit(delete(1L, 1L, 10));
+        assertEquals(registry.get(1L).getMinAge(), 20);
+        assertEquals(registry.get(1L).getMemberCount(), 2L);
+    }
+
+    /**
+     * 나이 변경, 팀 변경(changeTeam) 은 이전 팀에서 빼고 새 팀에 더한다
+     */
+    @Test
+    void updateMovesBetweenTeams() {
+        registry.onCommit(insert(1L, 1L, 10));
+        registry.onCommit(insert(2L, 1L, 20));
+
+        registry.onCommit(update(1L, 1L, 10, 1L, 15));
+        assertEquals(registry.get(1L).getAgeSum(), 35L);
+
+        registry.onCommit(update(2L, 1L, 20, 2L, 20));
+        assertEquals(registry.get(1L).getMemberCount(), 1L);
+        assertEquals(registry.get(1L).getMaxAge(), 15);
+        assertEquals(registry.get(2L).getMemberCount(), 1L);
+        assertEquals(registry.get(2L).getMinAge(), 20);
+    }
+
+    @Test
+    void emptyTeam() {
+        registry.onCommit(insert(1L, 1L, 10));
+        registry.onCommit(delete(1L, 1L, 10));
+
+        assertEquals(registry.get(1L), TeamStatistics.empty(1L));
+        assertNull(registry.get(99L).getAverageAge());
+        assertThat(registry.getAll()).isEmpty();
+    }
+
+    @Test
+    void otherEntitiesAreIgnored() {
+        registry.onCommit(new EntityCommitEvent(Team.class, 1L, EntityCommitEvent.Kind.INSERT,
+                null, state(null, null)));
+
+        assertThat(registry.getAll()).isEmpty();
+    }
+
+    private EntityCommitEvent insert(Long memberId, Long teamId, int age) {
+        return new EntityCommitEvent(Member.class, memberId, EntityCommitEvent.Kind.INSERT,
+                null, state(teamId, age));
+    }
+
+    private EntityCommitEvent update(Long memberId, Long oldTeamId, int oldAge, Long teamId, int age) {
+        return new EntityCommitEvent(Member.class, memberId, EntityCommitEvent.Kind.UPDATE,
+                state(oldTeamId, oldAge), state(teamId, age));
+    }
+
+    private EntityCommitEvent delete(Long memberId, Long teamId, int age) {
+        return new EntityCommitEvent(Member.class, memberId, EntityCommitEvent.Kind.DELETE,
+                state(teamId, age), null);
+    }
+
+    private Map<String, Object> state(Long teamId, Integer age) {
+        Map<String, Object> state = new HashMap<>();
+        state.put("team", teamId);
+        state.put("age", age);
+        state.put("username", "member");
+        return state;
+    }
+}